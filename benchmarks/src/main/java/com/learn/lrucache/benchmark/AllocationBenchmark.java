@@ -0,0 +1,67 @@
+package com.learn.lrucache.benchmark;
+
+import com.learn.lrucache.bean.HashLruCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description HashLruCache稳定状态下（get全部命中、put更新已有的key）每次操作分配的字节数
+ * <p>
+ * 需要加上 {@code -prof gc} 运行，看gc.alloc.rate.norm，预期为0：
+ * {@code java -jar target/benchmarks.jar AllocationBenchmark -prof gc}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Threads(1)
+public class AllocationBenchmark {
+    private static final int MAXIMUM_SIZE = 1024;
+    // key的数量只用一半容量，避免个别分片装满后发生逐出
+    private static final int KEY_COUNT = MAXIMUM_SIZE / 2;
+    private static final String VALUE = "value";
+
+    private HashLruCache<Integer, String> cache;
+    // key提前装箱，只统计缓存本身的分配
+    private Integer[] keys;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cache = HashLruCache.<Integer, String>newBuilder()
+                .maxSize(MAXIMUM_SIZE)
+                .sweepInterval(0)
+                .build();
+        keys = new Integer[KEY_COUNT];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = 1000 + i;
+            cache.put(keys[i], VALUE);
+        }
+    }
+
+    @Benchmark
+    public String getHit() {
+        return cache.get(keys[index++ & (KEY_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public String putUpdate() {
+        return cache.put(keys[index++ & (KEY_COUNT - 1)], VALUE);
+    }
+}
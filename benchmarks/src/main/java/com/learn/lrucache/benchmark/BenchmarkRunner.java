@@ -0,0 +1,52 @@
+package com.learn.lrucache.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 按线程数 1, 2, 4 ... 2倍CPU数 依次运行基准测试，开启GC profiler，
+ * 每个线程数的结果输出为一个JSON文件，便于在不同版本之间对比（例如用 jmh.morethan.net 或 JMH Visualizer）。
+ * <p>
+ * 用法：{@code java -cp target/benchmarks.jar com.learn.lrucache.benchmark.BenchmarkRunner [JMH参数]}，
+ * 结果写到 {@code -Dbench.output} 指定的目录（默认target/jmh），文件名带上 {@code -Dbench.tag}（默认dev）。
+ * 其它参数原样交给JMH，例如 {@code CacheBenchmark.get -p cacheType=HASH_LRU_CACHE}。
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        String tag = System.getProperty("bench.tag", "dev");
+        File output = new File(System.getProperty("bench.output", "target/jmh"));
+        if (!output.isDirectory() && !output.mkdirs()) {
+            throw new IllegalStateException("Cannot create " + output);
+        }
+
+        int maxThreads = Runtime.getRuntime().availableProcessors() * 2;
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            File result = new File(output, String.format("%s-%dt.json", tag, threads));
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .parent(commandLine)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(result.getPath());
+            if (commandLine.getIncludes().isEmpty()) {
+                options.include(CacheBenchmark.class.getSimpleName());
+            }
+            new Runner(options.build()).run();
+            if (threads == maxThreads) {
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.learn.lrucache.benchmark;
+
+import com.learn.lrucache.bean.Cache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 缓存get/put/混合读写的吞吐量和延迟分布
+ * <p>
+ * Throughput模式给出吞吐量，SampleTime模式给出p50/p90/p99/p99.9等延迟分位数。
+ * 线程数通过 {@code -t} 指定，或者使用 {@link BenchmarkRunner} 从1扫描到2倍CPU数；
+ * 加上 {@code -prof gc} 可以得到每次操作分配的字节数（gc.alloc.rate.norm）。
+ * <p>
+ * tableSize只对HASH_LRU_CACHE生效，比较其它实现时可以用 {@code -p tableSize=16} 去掉重复的组合。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class CacheBenchmark {
+    // 缓存容量
+    private static final int MAXIMUM_SIZE = 1 << 16;
+    // 预先放入的key的数量，只用一半容量，避免分片缓存因为分布不均匀在get基准中发生逐出
+    private static final int WORKING_SET = MAXIMUM_SIZE / 2;
+    // 访问序列的长度，2的幂
+    private static final int SEQUENCE_SIZE = 1 << 20;
+    private static final int SEQUENCE_MASK = SEQUENCE_SIZE - 1;
+    // 固定的随机种子，保证不同版本测试的访问序列相同
+    private static final long SEED = 20261016L;
+
+    @Param({"LRU_CACHE", "CONCURRENT_LRU_CACHE", "HASH_LRU_CACHE"})
+    CacheType cacheType;
+
+    @Param({"1", "16", "64"})
+    int tableSize;
+
+    @Param({"1.0", "0.9", "0.5"})
+    double hitRatio;
+
+    @Param({"UNIFORM", "ZIPFIAN", "SCAN"})
+    KeyDistribution distribution;
+
+    private Cache<Integer, Integer> cache;
+    private Integer[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cache = cacheType.create(MAXIMUM_SIZE, tableSize);
+        for (int i = 0; i < WORKING_SET; i++) {
+            cache.put(i, i);
+        }
+        keys = distribution.keys(WORKING_SET, hitRatio, SEQUENCE_SIZE, SEED);
+    }
+
+    /**
+     * 每个线程从访问序列的不同位置开始
+     */
+    @State(Scope.Thread)
+    public static class ThreadState {
+        int index;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            index = ThreadLocalRandom.current().nextInt(SEQUENCE_SIZE);
+        }
+    }
+
+    @Benchmark
+    public Integer get(ThreadState state) {
+        return cache.get(keys[state.index++ & SEQUENCE_MASK]);
+    }
+
+    @Benchmark
+    public Integer put(ThreadState state) {
+        Integer key = keys[state.index++ & SEQUENCE_MASK];
+        return cache.put(key, key);
+    }
+
+    /**
+     * 87.5%读、12.5%写
+     */
+    @Benchmark
+    public Integer mixed(ThreadState state) {
+        int index = state.index++;
+        Integer key = keys[index & SEQUENCE_MASK];
+        if ((index & 7) == 0) {
+            return cache.put(key, key);
+        }
+        return cache.get(key);
+    }
+}
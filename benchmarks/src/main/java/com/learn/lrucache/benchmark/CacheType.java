@@ -0,0 +1,47 @@
+package com.learn.lrucache.benchmark;
+
+import com.learn.lrucache.bean.Cache;
+import com.learn.lrucache.bean.ConcurrentLruCache;
+import com.learn.lrucache.bean.HashLruCache;
+import com.learn.lrucache.bean.LruCache;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 参与基准测试的缓存实现
+ */
+public enum CacheType {
+    /**
+     * 单锁的LruCache，tableSize参数无效
+     */
+    LRU_CACHE {
+        @Override
+        Cache<Integer, Integer> create(int maximumSize, int tableSize) {
+            return new LruCache<>(maximumSize);
+        }
+    },
+    /**
+     * 读缓冲 + 异步重排序的ConcurrentLruCache，tableSize参数无效
+     */
+    CONCURRENT_LRU_CACHE {
+        @Override
+        Cache<Integer, Integer> create(int maximumSize, int tableSize) {
+            return new ConcurrentLruCache<>(maximumSize);
+        }
+    },
+    /**
+     * 分片的HashLruCache，关闭后台清理，避免清理线程干扰测量
+     */
+    HASH_LRU_CACHE {
+        @Override
+        Cache<Integer, Integer> create(int maximumSize, int tableSize) {
+            return HashLruCache.<Integer, Integer>newBuilder()
+                    .maxSize(maximumSize)
+                    .tableSize(tableSize)
+                    .sweepInterval(0)
+                    .build();
+        }
+    };
+
+    abstract Cache<Integer, Integer> create(int maximumSize, int tableSize);
+}
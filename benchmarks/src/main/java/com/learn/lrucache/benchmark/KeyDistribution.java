@@ -0,0 +1,105 @@
+package com.learn.lrucache.benchmark;
+
+import java.util.Random;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 基准测试中key的访问分布
+ * <p>
+ * 缓存预先放入 [0, workingSet) 的key。生成访问序列时，按hitRatio的概率访问已存在的key，
+ * 其余访问落在 [workingSet, 5 * workingSet) 中不存在的key上；两部分的热度都服从同一个分布。
+ * get基准中未命中不会放入缓存，所以命中率固定为hitRatio；put/mixed基准会放入这些key并触发逐出。
+ */
+public enum KeyDistribution {
+    /**
+     * 均匀分布
+     */
+    UNIFORM {
+        @Override
+        RankGenerator generator(int n) {
+            return random -> random.nextInt(n);
+        }
+    },
+    /**
+     * Zipf分布（theta = 0.99），少数热点key占大部分访问
+     */
+    ZIPFIAN {
+        @Override
+        RankGenerator generator(int n) {
+            ZipfianGenerator zipfian = new ZipfianGenerator(n);
+            return zipfian::next;
+        }
+    },
+    /**
+     * Zipf分布中混入20%的顺序扫描，模拟批量任务对缓存的污染
+     */
+    SCAN {
+        @Override
+        RankGenerator generator(int n) {
+            ZipfianGenerator zipfian = new ZipfianGenerator(n);
+            int[] cursor = {0};
+            return random -> {
+                if (random.nextInt(5) == 0) {
+                    int rank = cursor[0];
+                    cursor[0] = rank + 1 == n ? 0 : rank + 1;
+                    return rank;
+                }
+                return zipfian.next(random);
+            };
+        }
+    };
+
+    // 不存在的key的范围是workingSet的倍数
+    private static final int ABSENT_MULTIPLIER = 4;
+
+    abstract RankGenerator generator(int n);
+
+    /**
+     * 生成访问序列，key提前装箱，避免测量到装箱的开销
+     *
+     * @param workingSet 已放入缓存的key的数量
+     * @param hitRatio   访问已存在的key的比例
+     * @param length     序列长度
+     * @param seed       随机种子，保证不同版本之间的序列相同
+     */
+    Integer[] keys(int workingSet, double hitRatio, int length, long seed) {
+        Random random = new Random(seed);
+        RankGenerator present = generator(workingSet);
+        RankGenerator absent = generator(workingSet * ABSENT_MULTIPLIER);
+        int[] presentKeys = permutation(workingSet, random);
+        int[] absentKeys = permutation(workingSet * ABSENT_MULTIPLIER, random);
+        Integer[] keys = new Integer[length];
+        for (int i = 0; i < length; i++) {
+            int key;
+            if (random.nextDouble() < hitRatio) {
+                key = presentKeys[present.next(random)];
+            } else {
+                key = workingSet + absentKeys[absent.next(random)];
+            }
+            keys[i] = key;
+        }
+        return keys;
+    }
+
+    /**
+     * 打乱排名与key的对应关系，避免热点key恰好是相邻的整数
+     */
+    private static int[] permutation(int n, Random random) {
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = result[i];
+            result[i] = result[j];
+            result[j] = tmp;
+        }
+        return result;
+    }
+
+    interface RankGenerator {
+        int next(Random random);
+    }
+}
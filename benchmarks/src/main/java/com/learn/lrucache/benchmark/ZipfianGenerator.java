@@ -0,0 +1,53 @@
+package com.learn.lrucache.benchmark;
+
+import java.util.Random;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description Zipf分布的随机数，返回 [0, n) 中的排名，0最热。算法与YCSB的ZipfianGenerator相同
+ * （Gray et al., Quickly Generating Billion-Record Synthetic Databases）。
+ */
+final class ZipfianGenerator {
+    // YCSB默认的偏斜系数
+    static final double DEFAULT_THETA = 0.99;
+
+    private final int n;
+    private final double theta;
+    private final double alpha;
+    private final double zetan;
+    private final double eta;
+
+    ZipfianGenerator(int n) {
+        this(n, DEFAULT_THETA);
+    }
+
+    ZipfianGenerator(int n, double theta) {
+        this.n = n;
+        this.theta = theta;
+        this.alpha = 1.0 / (1.0 - theta);
+        this.zetan = zeta(n, theta);
+        double zeta2 = zeta(2, theta);
+        this.eta = (1 - Math.pow(2.0 / n, 1 - theta)) / (1 - zeta2 / zetan);
+    }
+
+    int next(Random random) {
+        double u = random.nextDouble();
+        double uz = u * zetan;
+        if (uz < 1.0) {
+            return 0;
+        }
+        if (uz < 1.0 + Math.pow(0.5, theta)) {
+            return 1;
+        }
+        return Math.min(n - 1, (int) (n * Math.pow(eta * u - eta + 1, alpha)));
+    }
+
+    private static double zeta(int n, double theta) {
+        double sum = 0;
+        for (int i = 1; i <= n; i++) {
+            sum += 1 / Math.pow(i, theta);
+        }
+        return sum;
+    }
+}
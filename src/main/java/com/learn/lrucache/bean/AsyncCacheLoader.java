@@ -0,0 +1,58 @@
+package com.learn.lrucache.bean;
+
+import org.springframework.lang.NonNull;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 异步加载缓存数据，供 {@link AsyncLruCache} 在未命中时调用
+ */
+@FunctionalInterface
+public interface AsyncCacheLoader<K, V> {
+
+    /**
+     * 异步加载key对应的值，结果为null表示不存在。
+     * 该方法应该尽快返回，耗时的操作放到executor或者非阻塞客户端中执行。
+     */
+    @NonNull
+    CompletableFuture<V> asyncLoad(@NonNull K key, @NonNull Executor executor);
+
+    /**
+     * 批量加载，默认逐个调用 {@link #asyncLoad}。支持批量查询的后端（例如Redis MGET）应该重写该方法。
+     * 返回的Map中不包含的key视为不存在。
+     */
+    @NonNull
+    default CompletableFuture<Map<K, V>> asyncLoadAll(@NonNull Collection<? extends K> keys,
+                                                     @NonNull Executor executor) {
+        Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        for (K key : keys) {
+            futures.put(key, asyncLoad(key, executor));
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    Map<K, V> result = new HashMap<>();
+                    for (Map.Entry<K, CompletableFuture<V>> entry : futures.entrySet()) {
+                        V value = entry.getValue().join();
+                        if (value != null) {
+                            result.put(entry.getKey(), value);
+                        }
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * 把阻塞的加载方法包装为异步加载，加载在executor中执行
+     */
+    static <K, V> AsyncCacheLoader<K, V> fromBlocking(@NonNull Function<? super K, ? extends V> loader) {
+        return (key, executor) -> CompletableFuture.supplyAsync(() -> loader.apply(key), executor);
+    }
+}
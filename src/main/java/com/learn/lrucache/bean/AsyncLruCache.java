@@ -0,0 +1,221 @@
+package com.learn.lrucache.bean;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 非阻塞的缓存门面
+ * <p>
+ * 在 {@link LruCache}、{@link HashLruCache} 等同步缓存之上提供返回 {@link CompletableFuture} 的接口：
+ * - 命中时直接返回已完成的future，不切换线程。
+ * - 未命中时调用 {@link AsyncCacheLoader} 异步加载，同一个key正在加载时复用同一个future。
+ * - 加载完成后写回底层缓存。
+ * <p>
+ * 这样远程加载不再占用Tomcat的请求线程，也就不需要靠放大线程池来扛住阻塞IO。
+ * 底层缓存不应该再重写 create，否则 get 仍然会在调用线程上同步加载。
+ */
+public class AsyncLruCache<K, V> {
+    private final Cache<K, V> cache;
+    private final AsyncCacheLoader<K, V> loader;
+    private final Executor executor;
+    // 正在加载中的key
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public AsyncLruCache(@NonNull Cache<K, V> cache, @NonNull AsyncCacheLoader<K, V> loader) {
+        this(cache, loader, defaultExecutor());
+    }
+
+    /**
+     * @param executor 传给loader执行加载任务的线程池
+     */
+    public AsyncLruCache(@NonNull Cache<K, V> cache, @NonNull AsyncCacheLoader<K, V> loader,
+                         @NonNull Executor executor) {
+        if (cache == null || loader == null || executor == null) {
+            throw new NullPointerException("cache == null || loader == null || executor == null");
+        }
+        this.cache = cache;
+        this.loader = loader;
+        this.executor = executor;
+    }
+
+    /**
+     * 获取key对应的值，未命中时异步加载。future的结果为null表示不存在。
+     */
+    @NonNull
+    public CompletableFuture<V> getAsync(@NonNull K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        V value = cache.get(key);
+        if (value != null) {
+            return CompletableFuture.completedFuture(value);
+        }
+
+        CompletableFuture<V> promise = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, promise);
+        if (existing != null) {
+            return dependent(existing);
+        }
+
+        CompletableFuture<V> loading;
+        try {
+            loading = loader.asyncLoad(key, executor);
+            if (loading == null) {
+                throw new NullPointerException("asyncLoad returned null for " + key);
+            }
+        } catch (Throwable t) {
+            inFlight.remove(key, promise);
+            promise.completeExceptionally(t);
+            return promise;
+        }
+
+        loading.whenComplete((loaded, error) -> complete(key, promise, loaded, error));
+        return dependent(promise);
+    }
+
+    /**
+     * 批量获取，所有未命中且不在加载中的key通过一次 {@link AsyncCacheLoader#asyncLoadAll} 加载。
+     * 结果按keys的顺序排列，不包含不存在的key。
+     */
+    @NonNull
+    public CompletableFuture<Map<K, V>> getAllAsync(@NonNull Collection<? extends K> keys) {
+        Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        Map<K, CompletableFuture<V>> promises = new LinkedHashMap<>();
+        for (K key : keys) {
+            if (futures.containsKey(key)) {
+                continue;
+            }
+            V value = cache.get(key);
+            if (value != null) {
+                futures.put(key, CompletableFuture.completedFuture(value));
+                continue;
+            }
+            CompletableFuture<V> promise = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, promise);
+            if (existing != null) {
+                futures.put(key, existing);
+            } else {
+                futures.put(key, promise);
+                promises.put(key, promise);
+            }
+        }
+
+        if (!promises.isEmpty()) {
+            loadAll(promises);
+        }
+
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    Map<K, V> result = new LinkedHashMap<>();
+                    for (Map.Entry<K, CompletableFuture<V>> entry : futures.entrySet()) {
+                        V value = entry.getValue().join();
+                        if (value != null) {
+                            result.put(entry.getKey(), value);
+                        }
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * 直接放入底层缓存
+     */
+    @Nullable
+    public V put(@NonNull K key, @NonNull V value) {
+        return cache.put(key, value);
+    }
+
+    /**
+     * 底层的同步缓存
+     */
+    public Cache<K, V> synchronous() {
+        return cache;
+    }
+
+    private void loadAll(Map<K, CompletableFuture<V>> promises) {
+        List<K> keys = new ArrayList<>(promises.keySet());
+        CompletableFuture<Map<K, V>> loading;
+        try {
+            loading = loader.asyncLoadAll(keys, executor);
+            if (loading == null) {
+                throw new NullPointerException("asyncLoadAll returned null");
+            }
+        } catch (Throwable t) {
+            completeAll(promises, null, t);
+            return;
+        }
+        loading.whenComplete((loaded, error) -> completeAll(promises, loaded, error));
+    }
+
+    private void completeAll(Map<K, CompletableFuture<V>> promises, @Nullable Map<K, V> loaded,
+                             @Nullable Throwable error) {
+        for (Map.Entry<K, CompletableFuture<V>> entry : promises.entrySet()) {
+            K key = entry.getKey();
+            CompletableFuture<V> promise = entry.getValue();
+            V value = (error == null && loaded != null) ? loaded.get(key) : null;
+            complete(key, promise, value, error);
+        }
+    }
+
+    /**
+     * 把加载的结果放入缓存并完成promise。put抛出异常（例如entryRemoved、sizeOf或L2写入失败）时promise以该异常完成；
+     * 无论如何都会从inFlight中移除，否则之后对这个key的get会一直拿到一个不会完成的promise
+     */
+    private void complete(K key, CompletableFuture<V> promise, @Nullable V value, @Nullable Throwable error) {
+        try {
+            if (error == null && value != null) {
+                cache.put(key, value);
+            }
+        } catch (Throwable t) {
+            error = t;
+        } finally {
+            inFlight.remove(key, promise);
+        }
+        if (error != null) {
+            promise.completeExceptionally(error);
+        } else {
+            promise.complete(value);
+        }
+    }
+
+    /**
+     * 返回依赖于共享future的新future，调用方取消或完成它不会影响其它等待者
+     */
+    private static <V> CompletableFuture<V> dependent(CompletableFuture<V> shared) {
+        return shared.thenApply(v -> v);
+    }
+
+    /**
+     * 默认的加载线程池：运行时支持虚拟线程（JDK 21+）时每个任务一个虚拟线程，否则使用公共的ForkJoinPool
+     */
+    public static Executor defaultExecutor() {
+        return DefaultExecutorHolder.EXECUTOR;
+    }
+
+    private static final class DefaultExecutorHolder {
+        private static final Executor EXECUTOR = create();
+
+        private static Executor create() {
+            try {
+                // 项目以JDK 8为编译目标，通过反射使用虚拟线程
+                return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return ForkJoinPool.commonPool();
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.learn.lrucache.bean;
+
+import org.springframework.lang.NonNull;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 在后台线程中批量回调的 {@link RemovalListener}
+ * <p>
+ * onRemoval只把通知放入无锁队列，由executor中的一个任务批量取出并依次回调delegate，
+ * 回调（例如写日志、关闭资源、上报）不会在发起put、get的请求线程上执行，也不会拉长请求的延迟。
+ * <p>
+ * - 同一时间最多只有一个回调任务，delegate不需要是线程安全的，回调顺序与通知的顺序一致
+ * - 每个任务最多回调 {@link #MAX_BATCH} 条后重新提交，不会长时间占用executor中的线程
+ * - delegate抛出的异常会被忽略，不影响后续的回调
+ * - executor拒绝任务时在当前线程回调，保证通知不会丢失
+ */
+public final class AsyncRemovalListener<K, V> implements RemovalListener<K, V> {
+    // 每个任务最多回调的通知数量
+    public static final int MAX_BATCH = 1024;
+
+    private final RemovalListener<K, V> delegate;
+    private final Executor executor;
+    private final ConcurrentLinkedQueue<Notification<K, V>> queue = new ConcurrentLinkedQueue<>();
+    // 是否已经提交了回调任务
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    public AsyncRemovalListener(@NonNull RemovalListener<K, V> delegate, @NonNull Executor executor) {
+        if (delegate == null || executor == null) {
+            throw new NullPointerException("delegate == null || executor == null");
+        }
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public void onRemoval(@NonNull K key, @NonNull V value, @NonNull RemovalCause cause) {
+        queue.add(new Notification<>(key, value, cause));
+        schedule();
+    }
+
+    /**
+     * 还没有回调的通知数量
+     */
+    public int pending() {
+        return queue.size();
+    }
+
+    private void schedule() {
+        if (!scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> drain(MAX_BATCH));
+        } catch (RejectedExecutionException e) {
+            // executor已经关闭或者已满，在当前线程回调
+            drain(Integer.MAX_VALUE);
+        }
+    }
+
+    private void drain(int maxBatch) {
+        try {
+            Notification<K, V> notification;
+            for (int i = 0; i < maxBatch && (notification = queue.poll()) != null; i++) {
+                try {
+                    delegate.onRemoval(notification.key, notification.value, notification.cause);
+                } catch (RuntimeException ignored) {
+                    // 回调失败不影响后续的通知
+                }
+            }
+        } finally {
+            scheduled.set(false);
+        }
+        // 本批没有取完，或者释放scheduled之前放入的通知没有提交任务，重新提交
+        if (!queue.isEmpty()) {
+            schedule();
+        }
+    }
+
+    private static final class Notification<K, V> {
+        private final K key;
+        private final V value;
+        private final RemovalCause cause;
+
+        Notification(K key, V value, RemovalCause cause) {
+            this.key = key;
+            this.value = value;
+            this.cause = cause;
+        }
+    }
+}
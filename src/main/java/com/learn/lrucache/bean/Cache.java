@@ -0,0 +1,30 @@
+package com.learn.lrucache.bean;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 各种缓存实现共同的基本操作，便于在其上构建异步、分层等功能
+ */
+public interface Cache<K, V> {
+
+    /**
+     * 获取key对应的值，不存在时返回null
+     */
+    @Nullable
+    V get(@NonNull K key);
+
+    /**
+     * 放入缓存，返回key之前对应的值
+     */
+    @Nullable
+    V put(@NonNull K key, @NonNull V value);
+
+    /**
+     * 删除key，返回之前对应的值
+     */
+    @Nullable
+    V remove(@NonNull K key);
+}
@@ -0,0 +1,18 @@
+package com.learn.lrucache.bean;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 加载缓存数据失败或等待超时时抛出
+ */
+public class CacheLoadException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public CacheLoadException(String message) {
+        super(message);
+    }
+
+    public CacheLoadException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,50 @@
+package com.learn.lrucache.bean;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 同步加载缓存数据，供 {@link HashLruCache} 在未命中时调用
+ */
+@FunctionalInterface
+public interface CacheLoader<K, V> {
+
+    /**
+     * 加载key对应的值，返回null表示不存在
+     */
+    @Nullable
+    V load(@NonNull K key);
+
+    /**
+     * 刷新已经缓存的值，开启 {@link HashLruCache.Builder#refreshAfterWrite(long)} 时在后台线程中调用，
+     * 默认调用 {@link #load}。可以重写为根据旧值做条件查询（例如带上版本号），返回null表示不存在。
+     *
+     * @param oldValue 当前缓存的值
+     */
+    @Nullable
+    default V reload(@NonNull K key, @NonNull V oldValue) {
+        return load(key);
+    }
+
+    /**
+     * 批量加载，默认逐个调用 {@link #load}。支持批量查询的后端（例如Redis MGET）应该重写该方法，
+     * 在一次往返中加载所有的key。返回的Map中不包含的key视为不存在。
+     */
+    @NonNull
+    default Map<K, V> loadAll(@NonNull Collection<? extends K> keys) {
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            V value = load(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+}
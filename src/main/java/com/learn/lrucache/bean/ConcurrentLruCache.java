@@ -0,0 +1,525 @@
+package com.learn.lrucache.bean;
+
+import com.alibaba.fastjson.JSON;
+import com.learn.lrucache.bean.stats.CacheStats;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 读路径无锁的LruCache
+ * <p>
+ * {@link LruCache} 的 {@code get} 需要进入 {@code synchronized (this)}，因为 accessOrder=true 的
+ * LinkedHashMap 每次读取都会修改内部链表，高并发下线程都阻塞在这把监视器锁上。
+ * <p>
+ * 这里把"查找"和"维护访问顺序"拆开：
+ * - 数据存放在 {@link ConcurrentHashMap} 中，命中时不加锁直接返回。
+ * - 命中后把访问事件写入按线程分段的环形缓冲区（ReadBuffer），缓冲区写满时直接丢弃事件（有损），
+ * 所以读线程永远不会等待。
+ * - 缓冲区积累到一定数量后，通过 {@link ReentrantLock#tryLock()} 批量回放访问事件来调整LRU顺序，
+ * 抢不到锁的线程直接返回，由持有锁的线程负责。
+ * - 写操作（put/remove/逐出）在锁内完成，并在修改链表前先回放缓冲区中的访问事件。
+ * <p>
+ * 由于访问事件可能被丢弃，逐出顺序是近似LRU；对热点数据而言，被丢弃的只是重复的访问记录，影响可以忽略。
+ * <p>
+ * 对外保持与 {@link LruCache} 相同的 put/get/remove 语义，以及 entryRemoved/create/sizeOf 三个扩展点。
+ */
+public class ConcurrentLruCache<K, V> implements Cache<K, V> {
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+    // 分段缓冲区的数量，取不小于CPU数的2的幂
+    private static final int READ_BUFFER_STRIPES = ceilingPowerOfTwo(NCPU);
+    // 每个缓冲区可以暂存的访问事件数量
+    private static final int READ_BUFFER_SIZE = 16;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    // 缓冲区中积累的事件达到该值后尝试回放
+    private static final int READ_BUFFER_DRAIN_THRESHOLD = READ_BUFFER_SIZE / 2;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data;
+    private final ReadBuffer<K, V>[] readBuffers;
+    // 保护访问顺序链表、size、maxSize
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    // 访问顺序链表的哨兵，head.next 为最久未被访问的节点，head.prev 为最近访问的节点
+    private final Node<K, V> head;
+
+    //当前缓存的大小
+    private int size;
+    //最大可缓存的大小
+    private int maxSize;
+
+    private final LongAdder putCount = new LongAdder();
+    private final LongAdder createCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * @param maxSize for caches that do not override {@link #sizeOf}, this is
+     *                the maximum number of entries in the cache. For all other caches,
+     *                this is the maximum sum of the sizes of the entries in this cache.
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentLruCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        this.maxSize = maxSize;
+        this.data = new ConcurrentHashMap<>();
+        this.head = new Node<>(null, null, 0);
+        this.head.prev = head;
+        this.head.next = head;
+        this.readBuffers = new ReadBuffer[READ_BUFFER_STRIPES];
+        for (int i = 0; i < readBuffers.length; i++) {
+            readBuffers[i] = new ReadBuffer<>();
+        }
+    }
+
+    /**
+     * Caches {@code value} for {@code key}. The value is moved to the head of
+     * the queue.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public V put(@NonNull K key, @NonNull V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("key == null || value == null");
+        }
+
+        Node<K, V> node = new Node<>(key, value, safeSizeOf(key, value));
+        Node<K, V> previous;
+        evictionLock.lock();
+        try {
+            drainReadBuffers();
+            putCount.increment();
+            previous = data.put(key, node);
+            if (previous != null) {
+                unlink(previous);
+                size -= previous.size;
+            }
+            linkLast(node);
+            size += node.size;
+        } finally {
+            evictionLock.unlock();
+        }
+
+        if (previous != null) {
+            entryRemoved(false, key, previous.value, value);
+        }
+
+        trimToSize(maxSize);
+        return previous == null ? null : previous.value;
+    }
+
+    /**
+     * Returns the value for {@code key} if it exists in the cache or can be
+     * created by {@code #create}. This returns null if a value is not cached
+     * and cannot be created.
+     * <p>
+     * 命中时不获取任何锁，只把访问事件写入缓冲区。
+     */
+    @Nullable
+    public V get(@NonNull K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        Node<K, V> node = data.get(key);
+        if (node != null) {
+            hitCount.increment();
+            afterRead(node);
+            return node.value;
+        }
+        missCount.increment();
+
+        // 与LruCache相同：create()可能耗时较长，期间其它线程可能已经放入了该key
+        V createdValue = create(key);
+        if (createdValue == null) {
+            return null;
+        }
+
+        Node<K, V> created = new Node<>(key, createdValue, safeSizeOf(key, createdValue));
+        Node<K, V> existing;
+        evictionLock.lock();
+        try {
+            createCount.increment();
+            existing = data.putIfAbsent(key, created);
+            if (existing == null) {
+                drainReadBuffers();
+                linkLast(created);
+                size += created.size;
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+
+        if (existing != null) {
+            // 有冲突，保留已有的值，释放新创建的值
+            entryRemoved(false, key, createdValue, existing.value);
+            return existing.value;
+        } else {
+            trimToSize(maxSize);
+            return createdValue;
+        }
+    }
+
+    /**
+     * Removes the entry for {@code key} if it exists.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public V remove(@NonNull K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        Node<K, V> previous;
+        evictionLock.lock();
+        try {
+            previous = data.remove(key);
+            if (previous != null) {
+                unlink(previous);
+                size -= previous.size;
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+
+        if (previous != null) {
+            entryRemoved(false, key, previous.value, null);
+            return previous.value;
+        }
+        return null;
+    }
+
+    /**
+     * Remove the eldest entries until the total of remaining entries is at or
+     * below the requested size.
+     * <p>
+     * 与LruCache逐条加锁不同，这里在一次加锁内完成所有逐出，锁外统一回调entryRemoved。
+     *
+     * @param maxSize the maximum size of the cache before returning. May be -1
+     *                to evict even 0-sized elements.
+     */
+    public void trimToSize(int maxSize) {
+        List<Node<K, V>> evicted = null;
+        evictionLock.lock();
+        try {
+            drainReadBuffers();
+            while (true) {
+                if (size < 0 || (data.isEmpty() && size != 0)) {
+                    throw new IllegalStateException(getClass().getName()
+                            + ".sizeOf() is reporting inconsistent results!");
+                }
+
+                if (size <= maxSize || head.next == head) {
+                    break;
+                }
+
+                Node<K, V> toEvict = head.next;
+                unlink(toEvict);
+                data.remove(toEvict.key, toEvict);
+                size -= toEvict.size;
+                evictionCount.increment();
+                if (evicted == null) {
+                    evicted = new ArrayList<>();
+                }
+                evicted.add(toEvict);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+
+        if (evicted != null) {
+            for (Node<K, V> node : evicted) {
+                entryRemoved(true, node.key, node.value, null);
+            }
+        }
+    }
+
+    /**
+     * Sets the size of the cache.
+     *
+     * @param maxSize The new maximum size.
+     */
+    public void resize(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+
+        evictionLock.lock();
+        try {
+            this.maxSize = maxSize;
+        } finally {
+            evictionLock.unlock();
+        }
+        trimToSize(maxSize);
+    }
+
+    /**
+     * Called for entries that have been evicted or removed. See
+     * {@link LruCache#entryRemoved}.
+     *
+     * <p>The method is called without synchronization: other threads may
+     * access the cache while this method is executing.
+     */
+    protected void entryRemoved(boolean evicted, @NonNull K key, @NonNull V oldValue,
+                                @Nullable V newValue) {
+    }
+
+    /**
+     * Called after a cache miss to compute a value for the corresponding key.
+     * See {@link LruCache#create}.
+     */
+    @Nullable
+    protected V create(@NonNull K key) {
+        return null;
+    }
+
+    private int safeSizeOf(K key, V value) {
+        int result = sizeOf(key, value);
+        if (result < 0) {
+            throw new IllegalStateException("Negative size: " + key + "=" + value);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the size of the entry for {@code key} and {@code value} in
+     * user-defined units. See {@link LruCache#sizeOf}.
+     */
+    protected int sizeOf(@NonNull K key, @NonNull V value) {
+        return 1;
+    }
+
+    /**
+     * 把访问事件写入当前线程对应的缓冲区，积累到阈值后尝试回放。
+     */
+    private void afterRead(Node<K, V> node) {
+        ReadBuffer<K, V> buffer = readBuffers[bufferIndex()];
+        int pending = buffer.offer(node);
+        if (pending >= READ_BUFFER_DRAIN_THRESHOLD && evictionLock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private static int bufferIndex() {
+        long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (READ_BUFFER_STRIPES - 1);
+    }
+
+    /**
+     * 回放所有缓冲区中的访问事件，调用方必须持有 evictionLock。
+     */
+    private void drainReadBuffers() {
+        for (ReadBuffer<K, V> buffer : readBuffers) {
+            buffer.drainTo(this);
+        }
+    }
+
+    private void onAccess(Node<K, V> node) {
+        // 节点可能在事件写入缓冲区之后被删除或逐出
+        if (node.next != null) {
+            unlink(node);
+            linkLast(node);
+        }
+    }
+
+    private void linkLast(Node<K, V> node) {
+        Node<K, V> last = head.prev;
+        node.prev = last;
+        node.next = head;
+        last.next = node;
+        head.prev = node;
+    }
+
+    private void unlink(Node<K, V> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+
+    /**
+     * Clear the cache, calling {@link #entryRemoved} on each removed entry.
+     */
+    public final void evictAll() {
+        trimToSize(-1); // -1 will evict 0-sized elements
+    }
+
+    /**
+     * For caches that do not override {@link #sizeOf}, this returns the number
+     * of entries in the cache. For all other caches, this returns the sum of
+     * the sizes of the entries in this cache.
+     */
+    public final int size() {
+        evictionLock.lock();
+        try {
+            return size;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the maximum size of this cache.
+     */
+    public final int maxSize() {
+        evictionLock.lock();
+        try {
+            return maxSize;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned a value that was
+     * already present in the cache.
+     */
+    public final int hitCount() {
+        return saturatedCast(hitCount.sum());
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned null or required a new
+     * value to be created.
+     */
+    public final int missCount() {
+        return saturatedCast(missCount.sum());
+    }
+
+    /**
+     * Returns the number of times {@link #create(Object)} returned a value.
+     */
+    public final int createCount() {
+        return saturatedCast(createCount.sum());
+    }
+
+    /**
+     * Returns the number of times {@link #put} was called.
+     */
+    public final int putCount() {
+        return saturatedCast(putCount.sum());
+    }
+
+    /**
+     * Returns the number of values that have been evicted.
+     */
+    public final int evictionCount() {
+        return saturatedCast(evictionCount.sum());
+    }
+
+    /**
+     * 返回long计数的统计快照，create返回值的次数计为加载成功
+     */
+    public final CacheStats stats() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), putCount.sum(), evictionCount.sum(), 0,
+                createCount.sum(), 0, 0);
+    }
+
+    private static int saturatedCast(long value) {
+        return value > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) value;
+    }
+
+    /**
+     * Returns a copy of the current contents of the cache, ordered from least
+     * recently accessed to most recently accessed.
+     */
+    public final Map<K, V> snapshot() {
+        evictionLock.lock();
+        try {
+            drainReadBuffers();
+            Map<K, V> copy = new LinkedHashMap<>();
+            for (Node<K, V> node = head.next; node != head; node = node.next) {
+                copy.put(node.key, node.value);
+            }
+            return copy;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return JSON.toJSONString(snapshot());
+    }
+
+    static int ceilingPowerOfTwo(int x) {
+        return x <= 1 ? 1 : Integer.highestOneBit(x - 1) << 1;
+    }
+
+    private static final class Node<K, V> {
+        private final K key;
+        private final V value;
+        private final int size;
+        // 以下两个字段只在持有 evictionLock 时读写，next == null 表示节点已不在链表中
+        private Node<K, V> prev;
+        private Node<K, V> next;
+
+        Node(K key, V value, int size) {
+            this.key = key;
+            this.value = value;
+            this.size = size;
+        }
+    }
+
+    /**
+     * 有损的单消费者环形缓冲区：多个读线程通过CAS写入，写满或CAS失败时直接丢弃事件；
+     * 只有持有 evictionLock 的线程会消费。
+     */
+    private static final class ReadBuffer<K, V> {
+        private final AtomicReferenceArray<Node<K, V>> buffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        private final AtomicLong writeCounter = new AtomicLong();
+        private final AtomicLong readCounter = new AtomicLong();
+
+        /**
+         * @return 写入后缓冲区中待回放的事件数，丢弃时返回缓冲区容量以便触发回放
+         */
+        int offer(Node<K, V> node) {
+            long head = readCounter.get();
+            long tail = writeCounter.get();
+            long pending = tail - head;
+            if (pending >= READ_BUFFER_SIZE) {
+                return READ_BUFFER_SIZE;
+            }
+            if (writeCounter.compareAndSet(tail, tail + 1)) {
+                buffer.lazySet((int) (tail & READ_BUFFER_MASK), node);
+                return (int) (pending + 1);
+            }
+            return 0;
+        }
+
+        void drainTo(ConcurrentLruCache<K, V> cache) {
+            long head = readCounter.get();
+            long tail = writeCounter.get();
+            for (; head < tail; head++) {
+                int index = (int) (head & READ_BUFFER_MASK);
+                Node<K, V> node = buffer.get(index);
+                if (node == null) {
+                    // 写线程已经占位但还没有写入，下次再回放
+                    break;
+                }
+                buffer.lazySet(index, null);
+                cache.onAccess(node);
+            }
+            readCounter.lazySet(head);
+        }
+    }
+}
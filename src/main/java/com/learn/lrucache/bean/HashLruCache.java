@@ -1,43 +1,183 @@
 package com.learn.lrucache.bean;
 
+import com.learn.lrucache.bean.diagnostics.CacheDiagnostics;
+import com.learn.lrucache.bean.diagnostics.HotKey;
+import com.learn.lrucache.bean.diagnostics.ShardDiagnostics;
+import com.learn.lrucache.bean.io.Serializer;
+import com.learn.lrucache.bean.io.SnapshotReader;
+import com.learn.lrucache.bean.io.SnapshotWriter;
+import com.learn.lrucache.bean.policy.EvictionPolicy;
+import com.learn.lrucache.bean.stats.CacheStats;
+import com.learn.lrucache.bean.stats.ConcurrentStatsCounter;
+import com.learn.lrucache.bean.stats.LatencyRecorder;
+import com.learn.lrucache.bean.stats.LatencySnapshot;
+import com.learn.lrucache.bean.stats.StatsCounter;
+import com.learn.lrucache.bean.ticker.Ticker;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
 /**
  * @author Huangxuchu
  * @date 2021/1/11
  * @description
  */
-public class HashLruCache<K, V> {
-    public static final int DEFAULT_TABLE_SIZE = 16;
+public class HashLruCache<K, V> implements Cache<K, V> {
+    // 分片数量的上限
+    public static final int MAXIMUM_TABLE_SIZE = 1 << 16;
+    // 默认分片数量：不小于CPU数2倍的2的幂，让分片数随机器规模增长，降低锁竞争
+    public static final int DEFAULT_TABLE_SIZE = tableSizeFor(Runtime.getRuntime().availableProcessors() * 2);
     public static final int DEFAULT_OVER_TIME = 1000 * 60 * 10;
-    private Node<K, Entity<K, V>>[] table;
-
-    /**
-     * Size of this cache in units. Not necessarily the number of elements.
-     * 以单位为单位的缓存的大小。不一定是元素的数量。
-     */
-    //当前缓存的大小
-    private int size;
-    //最大可缓存的大小
-    private int maxSize;
+    // 后台清理过期数据的默认间隔（毫秒）
+    public static final long DEFAULT_SWEEP_INTERVAL = 1000;
+    // 每次清理时每个分片最多处理的数据条数
+    public static final int DEFAULT_SWEEP_BUDGET = 1000;
+    // 每次put顺带迁移的key数量，见reshard
+    private static final int MIGRATION_STEP = 16;
+    // 分片表及重新分片的状态，作为一个不可变对象整体替换，读取方总能看到一致的分片表和迁移状态
+    private volatile Shards<K, V> shards;
+    // 根据hash选择分片
+    private final ShardRouter router;
 
-    //put缓存的次数
-    private int putCount;
+    //最大可缓存的大小，所有分片共享；设置了weigher时是所有数据的权重之和的上限
+    private final long maxSize;
+    //计算数据的权重，为null表示每条数据的权重都是1
+    private final Weigher<? super K, ? super V> weigher;
+    //设置了weigher时所有分片的权重之和，容量由所有分片共同使用；为null时maxSize平均分配到每个分片
+    private final LongAdder totalWeight;
+    //每次清理时每个分片最多处理的数据条数
+    private final int sweepBudget;
+    //时间源，每次操作最多读取一次
+    private final Ticker ticker;
+    //未命中时的加载器，为null表示不加载
+    private final CacheLoader<K, V> loader;
+    //写入多久之后读取时在后台刷新（毫秒），0表示不刷新
+    private final long refreshAfterWrite;
+    //刷新时间随机提前的比例，避免同一时刻写入的数据同时刷新
+    private final double refreshJitter;
+    //执行后台刷新的线程池
+    private final Executor refreshExecutor;
+    //数据移出缓存（且没有未关闭的租约）后的回调，为null表示不需要回调
+    private final RemovalListener<K, V> removalListener;
+    //后台清理任务，为null表示没有开启
+    private final ScheduledFuture<?> sweepFuture;
+    //是否记录延迟，为false时热点路径上不会调用System.nanoTime()
+    private final boolean recordLatency;
+    //诊断的采样间隔（2的幂），0表示没有开启诊断
+    private final int sampleInterval;
+    //是否需要走带测量的get，开启延迟记录或诊断时为true
+    private final boolean instrumented;
+    //为新分片创建淘汰策略和统计计数器，重新分片时使用
+    private final IntFunction<EvictionPolicy<K>> evictionPolicy;
+    //设置了weigher时整个缓存预计的数据条数，用来创建淘汰策略
+    private final int expectedEntries;
+    private final Supplier<? extends StatsCounter> statsCounter;
+    //分片的创建序号，迁移时按序号加锁，只在构造和reshard中修改
+    private int nodeSequence;
 
     public HashLruCache(int maxSize) {
         this(maxSize, DEFAULT_TABLE_SIZE);
     }
 
     /**
-     * @param maxSize   分片的最大存储数量
-     * @param tableSize 分片数量
+     * @param maxSize   整个缓存的最大存储数量，平均分配到每个分片
+     * @param tableSize 期望的分片数量，会调整为2的幂，并且不会超过maxSize（保证每个分片至少能存1个）
      */
     public HashLruCache(int maxSize, int tableSize) {
-        if (maxSize <= 0) {
+        this(HashLruCache.<K, V>newBuilder().maxSize(maxSize).tableSize(tableSize));
+    }
+
+    private HashLruCache(Builder<K, V> builder) {
+        if (builder.maxSize <= 0) {
             throw new IllegalArgumentException("maxSize <= 0");
         }
-        this.maxSize = maxSize;
-        table = new Node[tableSize];
+        if (builder.tableSize <= 0) {
+            throw new IllegalArgumentException("tableSize <= 0");
+        }
+        if (builder.sweepBudget <= 0) {
+            throw new IllegalArgumentException("sweepBudget <= 0");
+        }
+        if (builder.refreshAfterWrite > 0 && builder.loader == null) {
+            throw new IllegalArgumentException("refreshAfterWrite requires a loader");
+        }
+        if (builder.refreshJitter < 0 || builder.refreshJitter >= 1) {
+            throw new IllegalArgumentException("refreshJitter must be in [0, 1)");
+        }
+        if (builder.weigher != null && builder.evictionPolicy != null && builder.expectedEntries <= 0) {
+            // 淘汰策略按数据条数划分区域和计数器，不能用权重的上限去创建
+            throw new IllegalArgumentException("evictionPolicy with weigher requires expectedEntries");
+        }
+        this.maxSize = builder.maxSize;
+        this.weigher = builder.weigher;
+        this.totalWeight = weigher == null ? null : new LongAdder();
+        this.sweepBudget = builder.sweepBudget;
+        this.ticker = builder.ticker;
+        this.loader = builder.loader;
+        this.refreshAfterWrite = Math.max(0L, builder.refreshAfterWrite);
+        this.refreshJitter = builder.refreshJitter;
+        this.refreshExecutor = builder.refreshExecutor;
+        this.removalListener = builder.removalListener == null || builder.removalExecutor == null
+                ? builder.removalListener
+                : new AsyncRemovalListener<>(builder.removalListener, builder.removalExecutor);
+        this.router = builder.router;
+        this.evictionPolicy = builder.evictionPolicy;
+        this.expectedEntries = builder.expectedEntries;
+        this.statsCounter = builder.statsCounter;
+        this.recordLatency = builder.recordLatency;
+        this.sampleInterval = builder.sampleInterval <= 0 ? 0 : tableSizeFor(builder.sampleInterval);
+        this.instrumented = recordLatency || sampleInterval > 0;
+        int n = tableSizeFor(builder.tableSize);
+        while (n > maxSize) {
+            n >>>= 1;
+        }
+        LatencyRecorder latency = newLatencyRecorder(n);
+        Node<K, V>[] table = new Node[n];
+        long now = ticker.read();
+        for (int i = 0; i < n; i++) {
+            table[i] = newNode(i, n, now, latency);
+        }
+        this.shards = new Shards<>(table, null, CacheStats.empty(), latency);
+        this.sweepFuture = builder.sweepInterval > 0 ? Sweeper.schedule(this, builder.sweepInterval) : null;
+    }
+
+    private Node<K, V> newNode(int index, int tableSize, long now, LatencyRecorder latency) {
+        long shardMaxSize = shardMaxSize(index, tableSize);
+        EvictionPolicy<K> policy = evictionPolicy == null ? null
+                : evictionPolicy.apply(policyCapacity(shardMaxSize, tableSize));
+        ShardProbe<K> probe = sampleInterval > 0 ? new ShardProbe<>(sampleInterval) : null;
+        return new Node<>(nodeSequence++, index, now, shardMaxSize, policy, statsCounter.get(), probe, latency,
+                totalWeight);
+    }
+
+    private LatencyRecorder newLatencyRecorder(int tableSize) {
+        return recordLatency ? LatencyRecorder.hdr(tableSize) : LatencyRecorder.disabled();
+    }
+
+    public static <K, V> Builder<K, V> newBuilder() {
+        return new Builder<>();
     }
 
     public final V put(K key, V value) {
@@ -51,25 +191,86 @@ public class HashLruCache<K, V> {
      * @return
      */
     public final V put(K key, V value, long overTime) {
-        int hash = hash(key);
-        int n = table.length;
-        int i;
-
-        Node<K, Entity<K, V>> p;
-        Node<K, Entity<K, V>>[] tab = table;
+        return put(key, value, overTime, null, null);
+    }
 
-        if ((p = tab[i = (n - 1) & hash]) == null) {
-            // TODO: 2021/1/11 没有想到如何设置每个分片的最大数量，暂定每一个都是用户期望的大小
-            p = tab[i] = new Node<>(0, maxSize);
+    /**
+     * @param expected      不为null时是条件写入：只有key当前对应的仍然是expected并且值仍然是expectedValue时才写入，
+     *                      用于后台刷新，避免刷新的结果覆盖期间写入的新值
+     * @param expectedValue expected在读取时的值
+     */
+    private V put(K key, V value, long overTime, Entity<K, V> expected, V expectedValue) {
+        long start = recordLatency ? System.nanoTime() : 0L;
+        int hash = hash(key);
+        int weight = weigh(key, value);
+        long now = ticker.read();
+        Node<K, V> p;
+        V previous = null;
+        Entity<K, V> last = null;
+        boolean sampled;
+        boolean timeLock;
+        long lockStart;
+        long acquired = 0L;
+        for (; ; ) {
+            Shards<K, V> s = shards;
+            p = nodeFor(s, hash, key);
+            sampled = p.probe != null && p.probe.sample();
+            timeLock = recordLatency || sampled;
+            lockStart = timeLock ? System.nanoTime() : 0L;
+            synchronized (p) {
+                if (timeLock) {
+                    acquired = System.nanoTime();
+                }
+                if (shards.table != s.table) {
+                    // 拿到锁之前分片表已经被替换，重新路由，避免写入不再使用的分片
+                    continue;
+                }
+                Entity<K, V> existing = p.touch(key);
+                if (expected != null && (existing != expected || existing.getValue() != expectedValue)) {
+                    // 刷新期间数据已经被替换、删除或过期，丢弃刷新的结果
+                    return null;
+                }
+                if (existing != null && existing.isExclusive() && existing.weight == weight) {
+                    // 已存在、没有未关闭的租约并且权重不变：直接修改原来的Entity并重新挂到时间轮，不分配任何对象
+                    previous = existing.getValue();
+                    existing.setValue(value);
+                    existing.expireAfter(now, overTime);
+                    existing.setRefreshTime(refreshTime(now));
+                    p.timerWheel.reschedule(existing);
+                } else {
+                    Entity<K, V> entity = new Entity<>(hash, key, value, weight);
+                    entity.expireAfter(now, overTime);
+                    entity.setRefreshTime(refreshTime(now));
+                    // 先挂到时间轮上再放入分片，被替换或逐出的旧数据会在entryRemoved中从时间轮摘除
+                    p.timerWheel.schedule(entity);
+                    if (totalWeight != null) {
+                        totalWeight.add(weight);
+                    }
+                    last = p.put(key, entity);
+                }
+            }
+            break;
+        }
+        p.stats.recordPut();
+        if (timeLock) {
+            recordLock(p, key, sampled, lockStart, acquired);
+        }
+        if (recordLatency) {
+            p.latency.record(p.index, LatencyRecorder.Operation.PUT, System.nanoTime() - start);
+        }
+        if (shards.migration != null) {
+            migrate(MIGRATION_STEP);
         }
 
-        putCount++;
-
-        p.setUpdateTime(System.currentTimeMillis());
-        Entity<K, V> entity = new Entity<>(hash, key, value, System.currentTimeMillis() + overTime);
-        Entity<K, V> last = p.put(key, entity);
-
-        return last == null ? null : last.value;
+        if (previous != null) {
+            if (removalListener != null) {
+                removalListener.onRemoval(key, previous, RemovalCause.REPLACED);
+            }
+            return previous;
+        }
+        enforceMaxWeight(p);
+        drainReleased(p);
+        return last == null ? null : last.getValue();
     }
 
     /**
@@ -77,54 +278,1051 @@ public class HashLruCache<K, V> {
      * @return
      */
     public final V get(K key) {
-        int hash = hash(key);
-        int n = table.length;
-        int i;
-
-        Node<K, Entity<K, V>> p;
-        Node<K, Entity<K, V>>[] tab = table;
-
-        if ((p = tab[i = (n - 1) & hash]) == null) {
-            return null;
+        if (instrumented) {
+            return getInstrumented(key);
         }
+        int hash = hash(key);
+        Node<K, V> p = nodeFor(shards, hash, key);
 
         Entity<K, V> last = p.get(key);
         if (last != null) {
-            // 修改节点的更新时间
-            p.setUpdateTime(System.currentTimeMillis());
+            long now = ticker.read();
 
-            if (System.currentTimeMillis() >= last.getOverTime()) {
-                // 已经超过设定的过期时间，返回null
-                return null;
+            if (now >= last.getOverTime()) {
+                // 已经超过设定的过期时间，立即删除并返回null，避免过期数据继续占用分片容量
+                expire(p, last);
+                p.stats.recordMiss();
+                return load(p, key);
             } else {
+                p.stats.recordHit();
+                if (now >= last.getRefreshTime()) {
+                    refresh(p, last);
+                }
                 return last.getValue();
             }
         } else {
-            return null;
+            p.stats.recordMiss();
+            return load(p, key);
         }
     }
 
-    public final V remove(K key) {
+    /**
+     * 开启延迟记录或诊断时的get，逻辑与get相同。
+     * GET只记录查找（包括删除过期数据）的耗时，未命中后的加载单独记到LOAD；
+     * synchronized无法直接取得等待时间，这里在外层重入一次分片锁，测量获取锁和持有锁的耗时。
+     */
+    private V getInstrumented(K key) {
+        long start = recordLatency ? System.nanoTime() : 0L;
+        int hash = hash(key);
+        Node<K, V> p = nodeFor(shards, hash, key);
+
+        Entity<K, V> last;
+        boolean sampled = p.probe != null && p.probe.sample();
+        if (recordLatency || sampled) {
+            long lockStart = System.nanoTime();
+            long acquired;
+            synchronized (p) {
+                acquired = System.nanoTime();
+                last = p.get(key);
+            }
+            recordLock(p, key, sampled, lockStart, acquired);
+        } else {
+            last = p.get(key);
+        }
+        boolean hit = false;
+        if (last != null) {
+            long now = ticker.read();
+            if (now >= last.getOverTime()) {
+                expire(p, last);
+            } else {
+                hit = true;
+                if (now >= last.getRefreshTime()) {
+                    refresh(p, last);
+                }
+            }
+        }
+        if (recordLatency) {
+            p.latency.record(p.index, LatencyRecorder.Operation.GET, System.nanoTime() - start);
+        }
+        if (hit) {
+            p.stats.recordHit();
+            return last.getValue();
+        }
+        p.stats.recordMiss();
+        return load(p, key);
+    }
+
+    /**
+     * 批量获取，返回的Map按keys的顺序排列，不包含不存在（或已过期且无法加载）的key。
+     * <p>
+     * key先按分片分组，每个分片只加锁一次完成查找和过期数据的删除；
+     * 所有未命中的key交给一次 {@link CacheLoader#loadAll} 调用，加载结果再按分片批量放入。
+     */
+    public final Map<K, V> getAll(Collection<? extends K> keys) {
+        Shards<K, V> s = shards;
+        Node<K, V>[] table = s.table;
+        List<K>[] groups = groupByShard(s, keys);
+        Map<K, V> found = new HashMap<>();
+        List<K> missing = new ArrayList<>();
+        List<K> rerouted = null;
+        long now = ticker.read();
+        for (int i = 0; i < groups.length; i++) {
+            List<K> group = groups[i];
+            if (group == null) {
+                continue;
+            }
+            Node<K, V> p = table[i];
+            List<Entity<K, V>> stale = null;
+            synchronized (p) {
+                if (shards.table != table) {
+                    // 分片表已经被替换，这一组可能已经迁移到新的分片，交给新的分片表重新查找
+                    if (rerouted == null) {
+                        rerouted = new ArrayList<>();
+                    }
+                    rerouted.addAll(group);
+                    continue;
+                }
+                Map<K, Entity<K, V>> entities = p.getAll(group);
+                for (K key : group) {
+                    Entity<K, V> entity = entities.get(key);
+                    if (entity == null) {
+                        p.stats.recordMiss();
+                        missing.add(key);
+                    } else if (now >= entity.getOverTime()) {
+                        // 锁内只删除，RemovalListener在释放锁之后由drainReleased回调
+                        removeExpired(p, entity);
+                        p.stats.recordMiss();
+                        missing.add(key);
+                    } else {
+                        p.stats.recordHit();
+                        found.put(key, entity.getValue());
+                        if (now >= entity.getRefreshTime()) {
+                            if (stale == null) {
+                                stale = new ArrayList<>();
+                            }
+                            stale.add(entity);
+                        }
+                    }
+                }
+            }
+            drainReleased(p);
+            if (stale != null) {
+                for (Entity<K, V> entity : stale) {
+                    refresh(p, entity);
+                }
+            }
+        }
+
+        if (rerouted != null) {
+            found.putAll(getAll(rerouted));
+        }
+
+        if (loader != null && !missing.isEmpty()) {
+            long start = System.nanoTime();
+            Map<K, V> loaded;
+            try {
+                loaded = loader.loadAll(missing);
+            } catch (RuntimeException | Error e) {
+                recordBatchLoad(missing, null, System.nanoTime() - start);
+                throw e;
+            }
+            recordBatchLoad(missing, loaded, System.nanoTime() - start);
+            if (loaded != null && !loaded.isEmpty()) {
+                Map<K, V> toPut = new HashMap<>();
+                for (K key : missing) {
+                    V value = loaded.get(key);
+                    if (value != null) {
+                        toPut.put(key, value);
+                    }
+                }
+                putAll(toPut);
+                found.putAll(toPut);
+            }
+        }
+
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            V value = found.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    public final void putAll(Map<? extends K, ? extends V> entries) {
+        putAll(entries, DEFAULT_OVER_TIME);
+    }
+
+    /**
+     * 批量放入，数据按分片分组，每个分片只加锁一次
+     */
+    @SuppressWarnings("unchecked")
+    public final void putAll(Map<? extends K, ? extends V> entries, long overTime) {
+        Shards<K, V> s = shards;
+        Node<K, V>[] table = s.table;
+        List<Entity<K, V>>[] groups = new List[table.length];
+        for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+            int hash = hash(entry.getKey());
+            int i = nodeFor(s, hash, entry.getKey()).index;
+            if (groups[i] == null) {
+                groups[i] = new ArrayList<>();
+            }
+            groups[i].add(new Entity<>(hash, entry.getKey(), entry.getValue(),
+                    weigh(entry.getKey(), entry.getValue())));
+        }
+
+        long now = ticker.read();
+        Map<K, V> stale = null;
+        for (int i = 0; i < groups.length; i++) {
+            List<Entity<K, V>> group = groups[i];
+            if (group == null) {
+                continue;
+            }
+            Node<K, V> p = table[i];
+            Map<K, Entity<K, V>> batch = new LinkedHashMap<>();
+            for (Entity<K, V> entity : group) {
+                entity.expireAfter(now, overTime);
+                entity.setRefreshTime(refreshTime(now));
+                batch.put(entity.getKey(), entity);
+            }
+            synchronized (p) {
+                if (shards.table != table) {
+                    // 分片表已经被替换，这一组交给新的分片表重新放入
+                    if (stale == null) {
+                        stale = new LinkedHashMap<>();
+                    }
+                    for (Entity<K, V> entity : group) {
+                        stale.put(entity.getKey(), entity.getValue());
+                    }
+                    continue;
+                }
+                for (Entity<K, V> entity : batch.values()) {
+                    p.timerWheel.schedule(entity);
+                    if (totalWeight != null) {
+                        totalWeight.add(entity.weight);
+                    }
+                }
+                p.putAll(batch);
+            }
+            for (int j = 0; j < batch.size(); j++) {
+                p.stats.recordPut();
+            }
+            enforceMaxWeight(p);
+            drainReleased(p);
+        }
+        if (stale != null) {
+            putAll(stale, overTime);
+        } else if (shards.migration != null) {
+            migrate(MIGRATION_STEP);
+        }
+    }
+
+    /**
+     * 批量删除，key按分片分组，每个分片只加锁一次
+     *
+     * @return 被删除的数据
+     */
+    public final Map<K, V> removeAll(Collection<? extends K> keys) {
+        Shards<K, V> s = shards;
+        Node<K, V>[] table = s.table;
+        List<K>[] groups = groupByShard(s, keys);
+        Map<K, V> removed = new LinkedHashMap<>();
+        for (int i = 0; i < groups.length; i++) {
+            List<K> group = groups[i];
+            if (group == null) {
+                continue;
+            }
+            Node<K, V> p = table[i];
+            for (Entity<K, V> entity : p.removeAll(group).values()) {
+                removed.put(entity.getKey(), entity.getValue());
+            }
+            drainReleased(p);
+        }
+        if (shards.table != table) {
+            // 删除过程中分片表被替换，没有删到的key可能已经迁移到新的分片
+            List<K> remaining = new ArrayList<>();
+            for (K key : keys) {
+                if (!removed.containsKey(key)) {
+                    remaining.add(key);
+                }
+            }
+            removed.putAll(removeAll(remaining));
+        }
+        return removed;
+    }
+
+    /**
+     * 租借key对应的值，不存在或已过期时返回null。
+     * <p>
+     * 租约持有期间，即使数据被逐出、删除、替换或过期，{@link RemovalListener} 也不会被回调，
+     * 直到最后一个租约关闭。这样缓存可以直接把池化的或者堆外的value交给调用方使用，不需要防御性拷贝，
+     * 也不用担心value在使用过程中被回收。租约必须关闭，推荐使用try-with-resources：
+     * <pre>
+     * {@code
+     *   try (HashLruCache.Lease<K, V> lease = cache.lease(key)) {
+     *       if (lease != null) {
+     *           use(lease.get());
+     *       }
+     *   }
+     * }
+     * </pre>
+     */
+    public final Lease<K, V> lease(K key) {
         int hash = hash(key);
-        int n = table.length;
-        int i;
+        Node<K, V> p = nodeFor(shards, hash, key);
 
-        Node<K, Entity<K, V>> p;
-        Node<K, Entity<K, V>>[] tab = table;
+        long now = ticker.read();
+        Entity<K, V> last;
+        boolean retained = false;
+        synchronized (p) {
+            // 在分片锁内retain，保证put不会就地修改已经被租借的数据
+            last = p.get(key);
+            if (last != null && now < last.getOverTime()) {
+                retained = last.retain();
+            }
+        }
+        if (last == null) {
+            p.stats.recordMiss();
+            return null;
+        }
 
-        if ((p = tab[i = (n - 1) & hash]) == null) {
+        if (now >= last.getOverTime()) {
+            expire(p, last);
+            p.stats.recordMiss();
             return null;
         }
+        if (!retained) {
+            // 已经被移出缓存并且所有引用都已释放
+            p.stats.recordMiss();
+            return null;
+        }
+        p.stats.recordHit();
+        return new Lease<>(this, last);
+    }
+
+    /**
+     * 刚释放分片锁时调用，记录获取锁的等待时间；被采样时同时记录持有时间和访问的key
+     *
+     * @param lockStart 开始获取锁的时间
+     * @param acquired  获取到锁的时间
+     */
+    private void recordLock(Node<K, V> p, K key, boolean sampled, long lockStart, long acquired) {
+        long waitNanos = acquired - lockStart;
+        if (recordLatency) {
+            p.latency.record(p.index, LatencyRecorder.Operation.LOCK_WAIT, waitNanos);
+        }
+        if (sampled) {
+            p.probe.record(key, waitNanos, System.nanoTime() - acquired);
+        }
+    }
 
-        Entity<K, V> last = p.remove(key);
-        if (last != null) {
-            // 修改节点的更新时间
-            p.setUpdateTime(System.currentTimeMillis());
+    /**
+     * 删除已过期的数据
+     */
+    private void expire(Node<K, V> p, Entity<K, V> entity) {
+        removeExpired(p, entity);
+        drainReleased(p);
+    }
 
-            return last.getValue();
-        } else {
+    /**
+     * 删除已过期的数据但不回调RemovalListener，可以在持有分片锁时调用，之后需要在锁外调用drainReleased
+     */
+    private void removeExpired(Node<K, V> p, Entity<K, V> entity) {
+        entity.markExpired();
+        if (p.remove(entity.getKey(), entity)) {
+            p.stats.recordExpiration();
+        }
+    }
+
+    /**
+     * 在不持有分片锁的情况下回调已经释放完所有引用的数据
+     */
+    private void drainReleased(Node<K, V> p) {
+        Entity<K, V> entity;
+        while ((entity = p.released.poll()) != null) {
+            notifyRemoval(entity);
+        }
+    }
+
+    private void notifyRemoval(Entity<K, V> entity) {
+        if (removalListener != null) {
+            removalListener.onRemoval(entity.getKey(), entity.getValue(), entity.removalCause);
+        }
+    }
+
+    /**
+     * 未命中时通过loader加载并放入缓存
+     */
+    private V load(Node<K, V> p, K key) {
+        if (loader == null) {
             return null;
         }
+        long start = System.nanoTime();
+        V value;
+        try {
+            value = loader.load(key);
+        } catch (RuntimeException | Error e) {
+            p.stats.recordLoadFailure(System.nanoTime() - start);
+            throw e;
+        }
+        long loadTime = System.nanoTime() - start;
+        if (recordLatency) {
+            p.latency.record(p.index, LatencyRecorder.Operation.LOAD, loadTime);
+        }
+        if (value != null) {
+            p.stats.recordLoadSuccess(loadTime);
+            put(key, value);
+        } else {
+            p.stats.recordLoadFailure(loadTime);
+        }
+        return value;
+    }
+
+    /**
+     * 在锁外计算数据的权重，之后保存在Entity上，逐出和删除时不再重新计算
+     */
+    private int weigh(K key, V value) {
+        if (weigher == null) {
+            return 1;
+        }
+        int weight = weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Negative weight: " + key + "=" + value);
+        }
+        return weight;
+    }
+
+    /**
+     * 设置了weigher时，所有分片的权重之和超过maxSize后逐出数据：从刚写入的分片的下一个分片开始，
+     * 依次按各分片的LRU顺序逐出，刚写入的分片放在最后，避免刚放入的数据被立即逐出。
+     * 分片由hash均匀选择，各个分片最久未访问的数据年龄相近，因此近似于整个缓存的LRU；
+     * 并发写入时可能短暂超出或多逐出少量数据。
+     */
+    private void enforceMaxWeight(Node<K, V> p) {
+        if (totalWeight == null) {
+            return;
+        }
+        long excess = totalWeight.sum() - maxSize;
+        if (excess <= 0) {
+            return;
+        }
+        Node<K, V>[] table = shards.table;
+        int start = p.index < table.length ? p.index + 1 : 0;
+        for (int i = 0; i < table.length && excess > 0; i++) {
+            Node<K, V> q = table[(start + i) % table.length];
+            q.trimToSize(Math.max(0L, q.weightedSize() - excess));
+            drainReleased(q);
+            excess = totalWeight.sum() - maxSize;
+        }
+    }
+
+    /**
+     * 读取命中时数据已经超过刷新时间：立即返回当前值，并在refreshExecutor中调用 {@link CacheLoader#reload} 刷新。
+     * 同一条数据同时只有一个刷新任务，并发的读取只会看到旧值，不会重复加载
+     */
+    private void refresh(Node<K, V> p, Entity<K, V> entity) {
+        if (!entity.startRefresh()) {
+            return;
+        }
+        V oldValue = entity.getValue();
+        try {
+            refreshExecutor.execute(() -> reload(p, entity, oldValue));
+        } catch (RejectedExecutionException e) {
+            // 线程池已满或已关闭，下次读取时再尝试
+            entity.endRefresh();
+        }
+    }
+
+    /**
+     * 后台刷新：加载成功后按数据放入时的存活时间条件写入。
+     * 加载失败或返回null时保留旧值，直到下一次读取再次刷新或者数据过期
+     */
+    private void reload(Node<K, V> p, Entity<K, V> entity, V oldValue) {
+        K key = entity.getKey();
+        long start = System.nanoTime();
+        try {
+            V value;
+            try {
+                value = loader.reload(key, oldValue);
+            } catch (RuntimeException e) {
+                p.stats.recordLoadFailure(System.nanoTime() - start);
+                return;
+            }
+            long loadTime = System.nanoTime() - start;
+            if (recordLatency) {
+                p.latency.record(p.index, LatencyRecorder.Operation.LOAD, loadTime);
+            }
+            if (value == null) {
+                p.stats.recordLoadFailure(loadTime);
+                return;
+            }
+            p.stats.recordLoadSuccess(loadTime);
+            put(key, value, entity.getTtl(), entity, oldValue);
+        } finally {
+            entity.endRefresh();
+        }
+    }
+
+    /**
+     * 写入时计算下一次刷新的时间，在refreshAfterWrite的基础上随机提前最多refreshJitter比例，
+     * 让同一批写入的热点数据分散在一段时间内刷新
+     */
+    private long refreshTime(long now) {
+        if (refreshAfterWrite == 0) {
+            return Long.MAX_VALUE;
+        }
+        long jitter = refreshJitter == 0 ? 0L
+                : (long) (ThreadLocalRandom.current().nextDouble() * refreshJitter * refreshAfterWrite);
+        return now + refreshAfterWrite - jitter;
+    }
+
+    /**
+     * 把一次批量加载的结果记到各个key所在的分片，耗时按key平均分摊。
+     * 分摊后的耗时不是单个key的加载延迟，所以批量加载不记入LOAD延迟分布
+     *
+     * @param loaded 为null表示加载抛出了异常
+     */
+    private void recordBatchLoad(List<K> keys, Map<K, V> loaded, long loadTime) {
+        long share = loadTime / keys.size();
+        for (K key : keys) {
+            Node<K, V> p = shardFor(hash(key));
+            if (loaded != null && loaded.get(key) != null) {
+                p.stats.recordLoadSuccess(share);
+            } else {
+                p.stats.recordLoadFailure(share);
+            }
+        }
+    }
+
+    /**
+     * 把key按分片分组并去重，下标与分片下标一致，没有key的分片为null。
+     * 正在重新分片时，同时把这些key迁移到新分片
+     */
+    @SuppressWarnings("unchecked")
+    private List<K>[] groupByShard(Shards<K, V> s, Collection<? extends K> keys) {
+        List<K>[] groups = new List[s.table.length];
+        for (K key : new LinkedHashSet<>(keys)) {
+            int i = nodeFor(s, hash(key), key).index;
+            if (groups[i] == null) {
+                groups[i] = new ArrayList<>();
+            }
+            groups[i].add(key);
+        }
+        return groups;
+    }
+
+    public final V remove(K key) {
+        int hash = hash(key);
+        for (; ; ) {
+            Shards<K, V> s = shards;
+            Node<K, V> p = nodeFor(s, hash, key);
+
+            Entity<K, V> last = p.remove(key);
+            if (last != null) {
+                drainReleased(p);
+
+                return last.getValue();
+            } else if (shards.table == s.table) {
+                return null;
+            }
+            // 删除过程中分片表被替换，key可能已经迁移到新的分片，重试
+        }
+    }
+
+    /**
+     * 增量清理所有分片中已过期的数据，每个分片最多处理 sweepBudget 条，
+     * 只会短暂持有单个分片的锁。开启后台清理时由后台线程定期调用，也可以手动调用。
+     *
+     * @return 本次清理掉的数据条数
+     */
+    public final int cleanUp() {
+        int expired = 0;
+        long now = ticker.read();
+        Shards<K, V> s = shards;
+        for (Node<K, V> p : s.table) {
+            expired += p.expire(now, sweepBudget);
+            drainReleased(p);
+        }
+        if (s.migration != null) {
+            for (Node<K, V> p : s.migration.dropped) {
+                expired += p.expire(now, sweepBudget);
+                drainReleased(p);
+            }
+            migrate(sweepBudget);
+        }
+        return expired;
+    }
+
+    /**
+     * 把缓存写成二进制快照文件，用于重启后预热，格式见 {@link SnapshotWriter}。
+     * <p>
+     * 逐个分片写出：每个分片只在锁内复制一次Entity的引用，序列化和写文件都在锁外进行，
+     * 同一时间最多阻塞一个分片，而且只阻塞一次数组复制的时间。每个分片内按从旧到新的顺序写入，
+     * 记录的是剩余存活时间，已经过期的数据不会写入。正在重新分片时，还没有下线的旧分片也会写入。
+     *
+     * @return 写入的数据条数
+     */
+    public final long writeSnapshot(Path path, Serializer<K> keySerializer, Serializer<V> valueSerializer)
+            throws IOException {
+        Shards<K, V> s = shards;
+        List<Node<K, V>> nodes = new ArrayList<>(Arrays.asList(s.table));
+        if (s.migration != null) {
+            nodes.addAll(s.migration.dropped);
+        }
+        try (SnapshotWriter<K, V> writer = SnapshotWriter.create(path, keySerializer, valueSerializer)) {
+            for (Node<K, V> p : nodes) {
+                List<Entity<K, V>> entities = p.values();
+                long now = ticker.read();
+                for (Entity<K, V> entity : entities) {
+                    long remaining = entity.getOverTime() - now;
+                    if (remaining > 0) {
+                        writer.write(entity.getKey(), entity.getValue(), remaining);
+                    }
+                }
+            }
+            return writer.commit();
+        }
+    }
+
+    /**
+     * 从快照文件加载数据，剩余存活时间减去快照写出后经过的时间，已经过期的数据跳过。
+     * <p>
+     * 快照按分片依次写出，分片内保持从旧到新的顺序，加载时按同样的顺序put，每个分片的LRU顺序得以还原；
+     * 分片数量与写出时不同也可以加载，此时不同分片之间的数据没有先后关系。
+     * 设置了evictionPolicy时分片内是插入顺序，加载后只还原数据，不还原淘汰策略的状态。
+     *
+     * @return 加载的数据条数
+     */
+    public final long loadSnapshot(Path path, Serializer<K> keySerializer, Serializer<V> valueSerializer)
+            throws IOException {
+        try (SnapshotReader<K, V> reader = SnapshotReader.open(path, keySerializer, valueSerializer)) {
+            // LruCache写出的快照没有过期时间，按默认存活时间放入
+            return reader.forEach((key, value, remainingMillis) -> put(key, value,
+                    remainingMillis == SnapshotWriter.NO_EXPIRY ? DEFAULT_OVER_TIME : remainingMillis));
+        }
+    }
+
+    /**
+     * 把分片数量调整为tableSize，不会超过maxSize（保证每个分片至少能存1个）。
+     * <p>
+     * 调用后立即切换到新的分片表，数据随后增量迁移，迁移期间缓存正常提供服务，命中率不会突然下降：
+     * - 读写某个key时，如果它还在旧分片，先把它移动到新分片
+     * - 每次put顺带迁移 {@value #MIGRATION_STEP} 个key，后台清理（或手动调用cleanUp）每次迁移 sweepBudget 个key
+     * <p>
+     * 移动不是删除：不回调 {@link RemovalListener}，不计入统计，剩余的过期时间、租约和在分片中的新旧顺序都保持不变。
+     * 下标小于新旧分片数中较小值的分片会被保留，只有路由发生变化的key需要移动，使用 {@link ShardRouter#jump()}
+     * 时这部分最少。迁移期间保留的分片使用新旧容量中较大的一个，新建的分片直接使用新容量，
+     * 所以缓存的总数据量可能暂时超过maxSize，迁移完成后再收缩到新容量。
+     * <p>
+     * 上一次重新分片还没有完成时，先在当前线程把它完成。
+     *
+     * @param tableSize 新的分片数量，不再调整为2的幂
+     */
+    public final synchronized void reshard(int tableSize) {
+        if (tableSize <= 0 || tableSize > MAXIMUM_TABLE_SIZE) {
+            throw new IllegalArgumentException("tableSize <= 0 || tableSize > " + MAXIMUM_TABLE_SIZE);
+        }
+        finishMigration();
+        Shards<K, V> s = shards;
+        Node<K, V>[] from = s.table;
+        int n = (int) Math.min(tableSize, maxSize);
+        if (n == from.length) {
+            return;
+        }
+
+        LatencyRecorder latency = newLatencyRecorder(n);
+        @SuppressWarnings("unchecked")
+        Node<K, V>[] to = new Node[n];
+        long now = ticker.read();
+        int reused = Math.min(n, from.length);
+        for (int i = 0; i < reused; i++) {
+            Node<K, V> p = from[i];
+            long shardMaxSize = shardMaxSize(i, n);
+            if (shardMaxSize > p.maxWeight()) {
+                p.resize(shardMaxSize);
+            }
+            p.latency = latency;
+            to[i] = p;
+        }
+        for (int i = reused; i < n; i++) {
+            to[i] = newNode(i, n, now, latency);
+        }
+        List<Node<K, V>> dropped = new ArrayList<>(Arrays.asList(from).subList(reused, from.length));
+        shards = new Shards<>(to, new Migration<>(from, dropped), s.retiredStats, latency);
+    }
+
+    /**
+     * 是否正在重新分片
+     */
+    public final boolean isResharding() {
+        return shards.migration != null;
+    }
+
+    /**
+     * 在当前线程完成正在进行的重新分片
+     */
+    public final void finishMigration() {
+        while (shards.migration != null) {
+            if (migrate(Integer.MAX_VALUE) == 0) {
+                // 其它线程正在迁移
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * key当前所在的分片。正在重新分片时，如果key还在旧分片，先把它移动到新分片，
+     * 这样后续的读写只需要访问新分片。
+     */
+    private Node<K, V> nodeFor(Shards<K, V> s, int hash, K key) {
+        Node<K, V> p = s.table[router.route(hash, s.table.length)];
+        Migration<K, V> m = s.migration;
+        if (m != null) {
+            Node<K, V> from = m.from[router.route(hash, m.from.length)];
+            if (from != p) {
+                move(from, p, key);
+            }
+        }
+        return p;
+    }
+
+    /**
+     * 推进正在进行的重新分片，按分片顺序最多检查budget个key；同一时间只有一个线程在推进，其它线程直接返回
+     *
+     * @return 本次检查的key数量，迁移完成或者其它线程正在推进时为0
+     */
+    private int migrate(int budget) {
+        Shards<K, V> s = shards;
+        Migration<K, V> m = s.migration;
+        if (m == null || !m.running.compareAndSet(false, true)) {
+            return 0;
+        }
+        int checked = 0;
+        try {
+            if (shards.migration != m) {
+                // 拿到running之前上一个线程已经完成了这次迁移，s已经过时，不能再次complete
+                return 0;
+            }
+            while (checked < budget) {
+                if (m.pending == null || !m.pending.hasNext()) {
+                    if (++m.source >= m.from.length) {
+                        complete(s);
+                        break;
+                    }
+                    // 快照按从旧到新的顺序排列，依次移动可以保持数据在新分片中的相对顺序
+                    m.pending = m.from[m.source].snapshot().keySet().iterator();
+                    continue;
+                }
+                K key = m.pending.next();
+                checked++;
+                Node<K, V> from = m.from[m.source];
+                Node<K, V> to = s.table[router.route(hash(key), s.table.length)];
+                if (from != to) {
+                    move(from, to, key);
+                }
+            }
+        } finally {
+            m.running.set(false);
+        }
+        return checked;
+    }
+
+    /**
+     * 所有旧分片都已经检查完，结束重新分片：
+     * 下线的分片的统计数据并入retiredStats，保留的分片收缩到新容量
+     */
+    private void complete(Shards<K, V> s) {
+        Node<K, V>[] table = s.table;
+        CacheStats retiredStats = s.retiredStats;
+        for (Node<K, V> p : s.migration.dropped) {
+            // 检查之后不会再有数据写入下线的分片，这里只是保险
+            for (K key : p.snapshot().keySet()) {
+                move(p, table[router.route(hash(key), table.length)], key);
+            }
+            drainReleased(p);
+            retiredStats = retiredStats.plus(p.stats.snapshot());
+        }
+        shards = new Shards<>(table, null, retiredStats, s.latency);
+        for (int i = 0; i < table.length; i++) {
+            Node<K, V> p = table[i];
+            long shardMaxSize = shardMaxSize(i, table.length);
+            if (p.maxWeight() != shardMaxSize) {
+                p.resize(shardMaxSize);
+                drainReleased(p);
+            }
+        }
+    }
+
+    /**
+     * 把key从旧分片移动到新分片。两个分片按创建顺序加锁，避免两个方向相反的移动互相等待。
+     * 新分片中已经有这个key时，旧数据视为被新数据替换。
+     * 调用方可能拿着过时的分片表，to已经不是key在当前分片表中的分片（例如已经下线）时不移动，
+     * 否则数据会留在不再被访问的分片中。
+     *
+     * @return 是否移动了数据
+     */
+    private boolean move(Node<K, V> from, Node<K, V> to, K key) {
+        Node<K, V> first = from.id < to.id ? from : to;
+        Node<K, V> second = first == from ? to : from;
+        Entity<K, V> entity;
+        boolean moved;
+        synchronized (first) {
+            synchronized (second) {
+                Shards<K, V> s = shards;
+                if (s.table[router.route(hash(key), s.table.length)] != to) {
+                    return false;
+                }
+                entity = from.detach(key);
+                if (entity == null) {
+                    return false;
+                }
+                moved = !to.containsKey(key);
+                if (moved) {
+                    to.timerWheel.schedule(entity);
+                    to.put(key, entity);
+                }
+            }
+        }
+        if (!moved) {
+            // detach时entryRemoved没有做任何记账，数据在这里才真正移出缓存
+            if (totalWeight != null) {
+                totalWeight.add(-entity.weight);
+            }
+            entity.removalCause = RemovalCause.REPLACED;
+            if (entity.release()) {
+                notifyRemoval(entity);
+            }
+        }
+        drainReleased(to);
+        return moved;
+    }
+
+    /**
+     * 停止后台清理任务，缓存本身仍然可以继续使用
+     */
+    public void close() {
+        if (sweepFuture != null) {
+            sweepFuture.cancel(false);
+        }
+    }
+
+    /**
+     * 当前分片表中hash对应的分片，不做迁移，只用于统计
+     */
+    private Node<K, V> shardFor(int hash) {
+        Node<K, V>[] table = shards.table;
+        return table[router.route(hash, table.length)];
+    }
+
+    /**
+     * 共n个分片时第i个分片的最大存储数量：maxSize平均分配，余数分给前面的分片，保证所有分片之和等于maxSize。
+     * 设置了weigher时容量由所有分片共同使用（见enforceMaxWeight），每个分片的上限就是maxSize
+     */
+    private long shardMaxSize(int i, int n) {
+        if (totalWeight != null) {
+            return maxSize;
+        }
+        return maxSize / n + (i < maxSize % n ? 1 : 0);
+    }
+
+    /**
+     * 创建淘汰策略时使用的分片容量（数据条数）：没有设置weigher时就是分片的最大存储数量，
+     * 设置了weigher时是expectedEntries平均到每个分片，而不是权重的上限
+     */
+    private int policyCapacity(long shardMaxSize, int tableSize) {
+        if (totalWeight == null) {
+            return (int) Math.min(Integer.MAX_VALUE, shardMaxSize);
+        }
+        return Math.max(1, (expectedEntries + tableSize - 1) / tableSize);
+    }
+
+    /**
+     * 所有分片当前缓存大小之和，包括正在重新分片时还没有下线的旧分片；超过Integer.MAX_VALUE时饱和，
+     * 按权重计算容量时使用 {@link #weightedSize()}
+     */
+    public final int size() {
+        long size = weightedSize();
+        return size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size;
+    }
+
+    /**
+     * 所有分片当前缓存大小（设置了weigher时是权重）之和，包括正在重新分片时还没有下线的旧分片
+     */
+    public final long weightedSize() {
+        Shards<K, V> s = shards;
+        long size = 0;
+        for (Node<K, V> p : s.table) {
+            size += p.weightedSize();
+        }
+        if (s.migration != null) {
+            for (Node<K, V> p : s.migration.dropped) {
+                size += p.weightedSize();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 整个缓存的最大存储数量，超过Integer.MAX_VALUE时饱和
+     */
+    public final int maxSize() {
+        return maxSize > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) maxSize;
+    }
+
+    /**
+     * 整个缓存的最大存储数量，设置了weigher时是权重之和的上限
+     */
+    public final long maxWeight() {
+        return maxSize;
+    }
+
+    /**
+     * 分片数量
+     */
+    public final int tableSize() {
+        return shards.table.length;
+    }
+
+    /**
+     * 所有分片逐出缓存的次数之和
+     */
+    public final long evictionCount() {
+        return stats().evictionCount();
+    }
+
+    /**
+     * put缓存的次数
+     */
+    public final long putCount() {
+        return stats().putCount();
+    }
+
+    /**
+     * 汇总所有分片的统计数据，包括重新分片后已经下线的分片，累计计数不会因为重新分片而回退
+     */
+    public final CacheStats stats() {
+        Shards<K, V> s = shards;
+        CacheStats stats = s.retiredStats;
+        for (Node<K, V> p : s.table) {
+            stats = stats.plus(p.stats.snapshot());
+        }
+        if (s.migration != null) {
+            for (Node<K, V> p : s.migration.dropped) {
+                stats = stats.plus(p.stats.snapshot());
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * 每个分片各自的统计数据，下标与分片下标一致，可以用来观察分片是否倾斜
+     */
+    public final List<CacheStats> shardStats() {
+        Node<K, V>[] table = shards.table;
+        List<CacheStats> list = new ArrayList<>(table.length);
+        for (Node<K, V> p : table) {
+            list.add(p.stats.snapshot());
+        }
+        return list;
+    }
+
+    /**
+     * 第index个分片的统计数据
+     */
+    public final CacheStats shardStats(int index) {
+        return shards.table[index].stats.snapshot();
+    }
+
+    /**
+     * 第index个分片当前的缓存大小
+     */
+    public final int shardSize(int index) {
+        return shards.table[index].size();
+    }
+
+    /**
+     * 是否开启了延迟记录，见 {@link Builder#recordLatency(boolean)}
+     */
+    public final boolean isRecordingLatency() {
+        return recordLatency;
+    }
+
+    /**
+     * 所有分片合并后的延迟分布，未开启延迟记录时返回空快照。
+     * 快照统计的是最近一个刷新周期内的数据，距离上次刷新超过1秒的调用会触发刷新。
+     */
+    public final LatencySnapshot latencySnapshot(LatencyRecorder.Operation operation) {
+        return shards.latency.snapshot(operation);
+    }
+
+    /**
+     * 第index个分片的延迟分布
+     */
+    public final LatencySnapshot shardLatencySnapshot(int index, LatencyRecorder.Operation operation) {
+        return shards.latency.snapshot(index, operation);
+    }
+
+    /**
+     * 分片诊断数据，热点key最多返回10个，见 {@link #diagnostics(int)}
+     */
+    public final CacheDiagnostics diagnostics() {
+        return diagnostics(10);
+    }
+
+    /**
+     * 每个分片的数据条数、操作次数，以及开启诊断（{@link Builder#diagnostics(int)}）时采样得到的
+     * 锁等待/持有时间和热点key，用来判断尾延迟是因为分片太少还是因为单个热点key。
+     * <p>
+     * 每个分片的key互不相同，所以把各分片的Space-Saving结果合并后取前topK就是全局的热点；
+     * 返回的次数已经乘以采样间隔，是估计的总访问次数。
+     *
+     * @param topK 最多返回的热点key数量
+     */
+    @SuppressWarnings("unchecked")
+    public final CacheDiagnostics diagnostics(int topK) {
+        Node<K, V>[] table = shards.table;
+        List<ShardDiagnostics> list = new ArrayList<>(table.length);
+        List<HotKey<Object>> hotKeys = new ArrayList<>();
+        long sampledAccesses = 0;
+        for (int i = 0; i < table.length; i++) {
+            Node<K, V> p = table[i];
+            CacheStats stats = p.stats.snapshot();
+            if (p.probe == null) {
+                list.add(new ShardDiagnostics(i, p.weightedSize(), p.maxWeight(),
+                        stats.hitCount(), stats.missCount(), stats.putCount(), stats.evictionCount(),
+                        0, 0, 0, 0, 0));
+                continue;
+            }
+            list.add(p.probe.snapshot(i, p.weightedSize(), p.maxWeight(), stats));
+            sampledAccesses += p.probe.sampledAccesses();
+            for (HotKey<K> hotKey : p.probe.hotKeys(topK)) {
+                hotKeys.add((HotKey<Object>) hotKey);
+            }
+        }
+        hotKeys.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+        if (hotKeys.size() > topK) {
+            hotKeys = new ArrayList<>(hotKeys.subList(0, topK));
+        }
+        double hottestKeyShare = hotKeys.isEmpty() || sampledAccesses == 0
+                ? 0.0 : (double) hotKeys.get(0).getCount() / sampledAccesses;
+        for (int i = 0; i < hotKeys.size(); i++) {
+            hotKeys.set(i, hotKeys.get(i).scale(sampleInterval));
+        }
+        return new CacheDiagnostics(table.length, sampleInterval, size(), maxSize(), list, hotKeys, hottestKeyShare);
+    }
+
+    /**
+     * 返回大于等于cap的最小的2的幂，与HashMap.tableSizeFor一致
+     */
+    static final int tableSizeFor(int cap) {
+        int n = cap - 1;
+        n |= n >>> 1;
+        n |= n >>> 2;
+        n |= n >>> 4;
+        n |= n >>> 8;
+        n |= n >>> 16;
+        return (n < 0) ? 1 : (n >= MAXIMUM_TABLE_SIZE) ? MAXIMUM_TABLE_SIZE : n + 1;
     }
 
     static final int hash(Object key) {
@@ -132,18 +1330,40 @@ public class HashLruCache<K, V> {
         return key == null ? 0 : (h = key.hashCode()) ^ h >>> 16;
     }
 
-    private static class Entity<K, V> {
+    private static class Entity<K, V> extends TimerWheel.Timer {
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Entity> REF_COUNT =
+                AtomicIntegerFieldUpdater.newUpdater(Entity.class, "refCount");
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Entity> REFRESHING =
+                AtomicIntegerFieldUpdater.newUpdater(Entity.class, "refreshing");
+
         private final int hash;
         private final K key;
-        private V value;
+        // 放入时计算的权重，之后不再改变；权重不同的put会替换为新的Entity
+        private final int weight;
+        // 没有租约时put会就地修改value和overTime，读取方可能不持有分片锁，所以是volatile
+        private volatile V value;
         // 过期时间
-        private long overTime;
+        private volatile long overTime;
+        // 放入时指定的存活时间，后台刷新成功后按它重新计算过期时间
+        private volatile long ttl;
+        // 引用计数：缓存本身持有1个，每个未关闭的租约持有1个，降为0时才回调RemovalListener
+        private volatile int refCount = 1;
+        // 下一次刷新的时间，Long.MAX_VALUE表示不刷新
+        private volatile long refreshTime = Long.MAX_VALUE;
+        // 是否有正在执行的刷新任务，0或1
+        private volatile int refreshing;
+        // 是否因过期被删除
+        private volatile boolean expired;
+        // 移出缓存的原因，在缓存释放自己的引用前设置
+        private volatile RemovalCause removalCause;
 
-        public Entity(int hash, K key, V value, long overTime) {
+        public Entity(int hash, K key, V value, int weight) {
             this.hash = hash;
             this.key = key;
+            this.weight = weight;
             this.value = value;
-            this.overTime = overTime;
         }
 
         public int getHash() {
@@ -162,12 +1382,73 @@ public class HashLruCache<K, V> {
             this.value = value;
         }
 
+        @Override
         public long getOverTime() {
             return overTime;
         }
 
-        public void setOverTime(long overTime) {
-            this.overTime = overTime;
+        public long getTtl() {
+            return ttl;
+        }
+
+        /**
+         * 从now开始存活ttl毫秒
+         */
+        public void expireAfter(long now, long ttl) {
+            this.ttl = ttl;
+            this.overTime = now + ttl;
+        }
+
+        public long getRefreshTime() {
+            return refreshTime;
+        }
+
+        public void setRefreshTime(long refreshTime) {
+            this.refreshTime = refreshTime;
+        }
+
+        /**
+         * 抢占刷新任务，已经有刷新任务在执行时返回false
+         */
+        boolean startRefresh() {
+            return refreshing == 0 && REFRESHING.compareAndSet(this, 0, 1);
+        }
+
+        void endRefresh() {
+            refreshing = 0;
+        }
+
+        void markExpired() {
+            expired = true;
+        }
+
+        /**
+         * 增加一个引用，数据的所有引用都已释放时返回false
+         */
+        boolean retain() {
+            for (; ; ) {
+                int count = refCount;
+                if (count == 0) {
+                    return false;
+                }
+                if (REF_COUNT.compareAndSet(this, count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * 是否只有缓存本身持有引用（没有未关闭的租约），需要持有分片锁时判断
+         */
+        boolean isExclusive() {
+            return refCount == 1;
+        }
+
+        /**
+         * 释放一个引用，返回是否是最后一个引用
+         */
+        boolean release() {
+            return REF_COUNT.decrementAndGet(this) == 0;
         }
 
         @Override
@@ -181,35 +1462,440 @@ public class HashLruCache<K, V> {
         }
     }
 
-    private static class Node<K, V> extends LruCache<K, V> {
-        private long updateTime;
+    private static class Node<K, V> extends LruCache<K, Entity<K, V>> {
+        // 创建序号，同时锁两个分片时按它排序
+        private final int id;
+        // 分片下标，重新分片时被保留的分片下标不变
+        private final int index;
+        // 延迟记录，重新分片时换成按新分片数创建的记录器
+        private volatile LatencyRecorder latency;
+        // 正在把数据移动到其它分片，只在持有本分片的锁时访问
+        private boolean moving;
+        private final StatsCounter stats;
+        // 诊断探针，没有开启诊断时为null
+        private final ShardProbe<K> probe;
+        // 已移出本分片并且释放了所有引用、等待回调RemovalListener的数据
+        private final ConcurrentLinkedQueue<Entity<K, V>> released = new ConcurrentLinkedQueue<>();
+        // 按过期时间组织本分片的数据，只在持有本分片的锁时访问
+        private final TimerWheel timerWheel;
+        // 整个缓存的权重之和，没有设置weigher时为null
+        private final LongAdder totalWeight;
 
-        public Node(int maxSize) {
-            super(maxSize);
-            this.updateTime = 0;
+        public Node(long maxSize) {
+            this(0, 0, 0, maxSize, null, new ConcurrentStatsCounter(), null, LatencyRecorder.disabled(), null);
         }
 
-        public Node(long updateTime, int maxSize) {
-            super(maxSize);
-            this.updateTime = updateTime;
+        public Node(int id, int index, long now, long maxSize, EvictionPolicy<K> policy, StatsCounter stats,
+                    ShardProbe<K> probe, LatencyRecorder latency, LongAdder totalWeight) {
+            super(maxSize, policy, null);
+            this.totalWeight = totalWeight;
+            this.id = id;
+            this.index = index;
+            this.latency = latency;
+            this.probe = probe;
+            this.stats = stats;
+            this.timerWheel = new TimerWheel(now);
         }
 
-        public long getUpdateTime() {
-            return updateTime;
+        /**
+         * 为了移动到其它分片而取出key对应的数据：只从时间轮摘除，不释放引用、不计入统计，
+         * 数据本身保持不变。调用方需要持有本分片的锁。
+         */
+        Entity<K, V> detach(K key) {
+            moving = true;
+            try {
+                return remove(key);
+            } finally {
+                moving = false;
+            }
         }
 
-        public void setUpdateTime(long updateTime) {
-            this.updateTime = updateTime;
+        /**
+         * 推进本分片的时间轮，删除最多 budget 条已过期的数据
+         */
+        @SuppressWarnings("unchecked")
+        synchronized int expire(long now, int budget) {
+            return timerWheel.advance(now, budget, timer -> {
+                Entity<K, V> entity = (Entity<K, V>) timer;
+                entity.markExpired();
+                if (remove(entity.getKey(), entity)) {
+                    stats.recordExpiration();
+                }
+            });
         }
 
+        /**
+         * 数据移出本分片时从时间轮摘除，并释放缓存持有的引用；
+         * 没有未关闭的租约时放入released队列，由HashLruCache在锁外回调RemovalListener。
+         */
+        @Override
+        protected void entryRemoved(boolean evicted, K key, Entity<K, V> oldValue, Entity<K, V> newValue) {
+            synchronized (this) {
+                timerWheel.deschedule(oldValue);
+                if (moving) {
+                    return;
+                }
+            }
+            if (totalWeight != null) {
+                totalWeight.add(-oldValue.weight);
+            }
+            if (evicted) {
+                stats.recordEviction();
+            }
+            oldValue.removalCause = evicted ? RemovalCause.SIZE
+                    : newValue != null ? RemovalCause.REPLACED
+                    : oldValue.expired ? RemovalCause.EXPIRED
+                    : RemovalCause.EXPLICIT;
+            if (oldValue.release()) {
+                released.add(oldValue);
+            }
+        }
+
+        /**
+         * 直接读取放入时保存的权重，逐出和删除时不在锁内重新计算
+         */
+        @Override
+        protected int sizeOf(K key, Entity<K, V> value) {
+            return value.weight;
+        }
+
+    }
+
+    /**
+     * 分片表及重新分片的状态，不可变
+     */
+    private static final class Shards<K, V> {
+        final Node<K, V>[] table;
+        // 正在重新分片时的迁移状态，否则为null
+        final Migration<K, V> migration;
+        // 已经下线的分片的统计数据之和
+        final CacheStats retiredStats;
+        // 与table对应的延迟记录
+        final LatencyRecorder latency;
+
+        Shards(Node<K, V>[] table, Migration<K, V> migration, CacheStats retiredStats, LatencyRecorder latency) {
+            this.table = table;
+            this.migration = migration;
+            this.retiredStats = retiredStats;
+            this.latency = latency;
+        }
+    }
+
+    /**
+     * 一次重新分片的迁移进度。source和pending只由持有running的线程访问
+     */
+    private static final class Migration<K, V> {
+        // 重新分片前的分片表
+        final Node<K, V>[] from;
+        // 不在新分片表中、迁移完成后下线的分片
+        final List<Node<K, V>> dropped;
+        final AtomicBoolean running = new AtomicBoolean();
+        // 正在检查的旧分片下标
+        int source = -1;
+        // 正在检查的旧分片中还没有检查的key
+        Iterator<K> pending;
+
+        Migration(Node<K, V>[] from, List<Node<K, V>> dropped) {
+            this.from = from;
+            this.dropped = dropped;
+        }
+    }
+
+    /**
+     * 对缓存中一个值的租约，关闭前该值不会被回调 {@link RemovalListener}。
+     * 不是线程安全的，一个租约应该只由一个线程使用；重复关闭是安全的。
+     */
+    public static final class Lease<K, V> implements AutoCloseable {
+        private final HashLruCache<K, V> cache;
+        private final Entity<K, V> entity;
+        private boolean closed;
+
+        private Lease(HashLruCache<K, V> cache, Entity<K, V> entity) {
+            this.cache = cache;
+            this.entity = entity;
+        }
+
+        public K getKey() {
+            return entity.getKey();
+        }
+
+        /**
+         * 租借的值，租约关闭后不应再使用
+         */
+        public V get() {
+            if (closed) {
+                throw new IllegalStateException("lease is closed");
+            }
+            return entity.getValue();
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (entity.release()) {
+                // 数据已经被移出缓存，这是最后一个引用
+                cache.notifyRemoval(entity);
+            }
+        }
+    }
+
+    /**
+     * 所有HashLruCache共享一个后台清理线程。任务只弱引用缓存，缓存被回收后任务自动取消。
+     */
+    private static final class Sweeper implements Runnable {
+        private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "HashLruCache-Sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private final WeakReference<HashLruCache<?, ?>> cacheRef;
+        private volatile ScheduledFuture<?> future;
+
+        private Sweeper(HashLruCache<?, ?> cache) {
+            this.cacheRef = new WeakReference<>(cache);
+        }
+
+        static ScheduledFuture<?> schedule(HashLruCache<?, ?> cache, long interval) {
+            Sweeper sweeper = new Sweeper(cache);
+            sweeper.future = EXECUTOR.scheduleWithFixedDelay(sweeper, interval, interval, TimeUnit.MILLISECONDS);
+            return sweeper.future;
+        }
+
+        @Override
+        public void run() {
+            HashLruCache<?, ?> cache = cacheRef.get();
+            if (cache == null) {
+                ScheduledFuture<?> f = future;
+                if (f != null) {
+                    f.cancel(false);
+                }
+                return;
+            }
+            try {
+                cache.cleanUp();
+            } catch (RuntimeException ignored) {
+                // 异常不能抛出，否则后续的定时任务都不会再执行
+            }
+        }
+    }
+
+    public static final class Builder<K, V> {
+        private long maxSize;
+        private Weigher<? super K, ? super V> weigher;
+        private int tableSize = DEFAULT_TABLE_SIZE;
+        private long sweepInterval = DEFAULT_SWEEP_INTERVAL;
+        private int sweepBudget = DEFAULT_SWEEP_BUDGET;
+        private Ticker ticker = Ticker.systemTicker();
+        private CacheLoader<K, V> loader;
+        private RemovalListener<K, V> removalListener;
+        private Executor removalExecutor;
+        private IntFunction<EvictionPolicy<K>> evictionPolicy;
+        private int expectedEntries;
+        private Supplier<? extends StatsCounter> statsCounter = ConcurrentStatsCounter::new;
+        private boolean recordLatency;
+        private int sampleInterval;
+        private ShardRouter router = ShardRouter.highBits();
+        private long refreshAfterWrite;
+        private double refreshJitter = 0.1;
+        private Executor refreshExecutor = AsyncLruCache.defaultExecutor();
+
+        private Builder() {
+        }
+
+        /**
+         * @param maxSize 整个缓存的最大存储数量
+         */
+        public Builder<K, V> maxSize(int maxSize) {
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * @param maxWeight 整个缓存的权重之和的上限，与weigher一起使用，可以超过Integer.MAX_VALUE
+         */
+        public Builder<K, V> maxWeight(long maxWeight) {
+            this.maxSize = maxWeight;
+            return this;
+        }
+
+        /**
+         * @param weigher 计算每条数据的权重，例如 {@code (key, value) -> value.length}。
+         *                设置后容量按权重之和计算，并且由所有分片共同使用：某个分片的数据特别大时可以占用更多容量，
+         *                而不是只能使用maxWeight / tableSize
+         */
+        public Builder<K, V> weigher(Weigher<? super K, ? super V> weigher) {
+            this.weigher = weigher;
+            return this;
+        }
+
+        /**
+         * @param tableSize 期望的分片数量，默认根据CPU数计算
+         */
+        public Builder<K, V> tableSize(int tableSize) {
+            this.tableSize = tableSize;
+            return this;
+        }
+
+        /**
+         * @param sweepInterval 后台清理过期数据的间隔（毫秒），小于等于0表示不开启后台清理
+         */
+        public Builder<K, V> sweepInterval(long sweepInterval) {
+            this.sweepInterval = sweepInterval;
+            return this;
+        }
+
+        /**
+         * @param sweepBudget 每次清理时每个分片最多处理的数据条数
+         */
+        public Builder<K, V> sweepBudget(int sweepBudget) {
+            this.sweepBudget = sweepBudget;
+            return this;
+        }
+
+        /**
+         * @param ticker 时间源，默认使用 {@link Ticker#systemTicker()}；
+         *               对精度要求不高时可以使用 {@link Ticker#cachedTicker()} 去掉热点路径上的取时间开销
+         */
+        public Builder<K, V> ticker(Ticker ticker) {
+            if (ticker == null) {
+                throw new NullPointerException("ticker == null");
+            }
+            this.ticker = ticker;
+            return this;
+        }
+
+        /**
+         * @param loader 未命中时的加载器，get和getAll会用它加载数据并放入缓存
+         */
+        public Builder<K, V> loader(CacheLoader<K, V> loader) {
+            this.loader = loader;
+            return this;
+        }
+
+        /**
+         * @param removalListener 数据移出缓存后的回调，存在未关闭的租约时推迟到最后一个租约关闭
+         */
+        public Builder<K, V> removalListener(RemovalListener<K, V> removalListener) {
+            this.removalListener = removalListener;
+            return this;
+        }
+
+        /**
+         * @param removalExecutor 设置后removalListener在该线程池中批量回调（见 {@link AsyncRemovalListener}），
+         *                        不会在调用put、get的线程上执行；不设置时在调用方线程中同步回调
+         */
+        public Builder<K, V> removalExecutor(Executor removalExecutor) {
+            this.removalExecutor = removalExecutor;
+            return this;
+        }
+
+        /**
+         * @param evictionPolicy 为每个分片创建淘汰策略，参数是该分片的最大存储数量，例如
+         *                       {@code builder.evictionPolicy(WTinyLfuPolicy::new)}；不设置时分片使用LRU。
+         *                       设置了weigher时参数见 {@link #expectedEntries(int)}
+         */
+        public Builder<K, V> evictionPolicy(IntFunction<EvictionPolicy<K>> evictionPolicy) {
+            this.evictionPolicy = evictionPolicy;
+            return this;
+        }
+
+        /**
+         * @param expectedEntries 整个缓存预计的数据条数，同时设置weigher和evictionPolicy时必须设置，
+         *                        淘汰策略的参数改为expectedEntries平均到每个分片的条数
+         */
+        public Builder<K, V> expectedEntries(int expectedEntries) {
+            this.expectedEntries = expectedEntries;
+            return this;
+        }
+
+        /**
+         * @param statsCounter 为每个分片创建统计计数器，默认 {@link ConcurrentStatsCounter}；
+         *                     传入 {@code StatsCounter::disabled} 关闭统计
+         */
+        public Builder<K, V> statsCounter(Supplier<? extends StatsCounter> statsCounter) {
+            if (statsCounter == null) {
+                throw new NullPointerException("statsCounter == null");
+            }
+            this.statsCounter = statsCounter;
+            return this;
+        }
+
+        /**
+         * @param recordLatency 是否按分片记录get、put、加载和等待分片锁的延迟分布（HdrHistogram），默认不开启；
+         *                      不开启时热点路径上没有任何额外开销
+         */
+        public Builder<K, V> recordLatency(boolean recordLatency) {
+            this.recordLatency = recordLatency;
+            return this;
+        }
+
+        /**
+         * @param sampleInterval 开启分片诊断：每sampleInterval次get/put随机采样一次，测量分片锁的等待和持有时间，
+         *                       并统计热点key；会调整为2的幂，小于等于0表示不开启（默认）。见 {@link HashLruCache#diagnostics(int)}
+         */
+        public Builder<K, V> diagnostics(int sampleInterval) {
+            this.sampleInterval = sampleInterval;
+            return this;
+        }
+
+        /**
+         * @param router 根据hash选择分片，默认 {@link ShardRouter#highBits()}；
+         *               需要在运行时调整分片数量（{@link HashLruCache#reshard(int)}）时推荐 {@link ShardRouter#jump()}
+         */
+        public Builder<K, V> shardRouter(ShardRouter router) {
+            if (router == null) {
+                throw new NullPointerException("router == null");
+            }
+            this.router = router;
+            return this;
+        }
+
+        /**
+         * @param refreshAfterWrite 写入多久之后（毫秒）读取时在后台刷新，应该小于过期时间。
+         *                          超过刷新时间的读取仍然立即返回当前值，同时异步调用 {@link CacheLoader#reload} 一次，
+         *                          热点数据不会因为过期出现同步加载。需要设置loader，小于等于0表示不刷新（默认）
+         */
+        public Builder<K, V> refreshAfterWrite(long refreshAfterWrite) {
+            this.refreshAfterWrite = refreshAfterWrite;
+            return this;
+        }
+
+        /**
+         * @param refreshJitter 刷新时间随机提前的最大比例，取值 [0, 1)，默认0.1，
+         *                      即在refreshAfterWrite的90%到100%之间刷新
+         */
+        public Builder<K, V> refreshJitter(double refreshJitter) {
+            this.refreshJitter = refreshJitter;
+            return this;
+        }
+
+        /**
+         * @param refreshExecutor 执行后台刷新的线程池，默认 {@link AsyncLruCache#defaultExecutor()}
+         */
+        public Builder<K, V> refreshExecutor(Executor refreshExecutor) {
+            if (refreshExecutor == null) {
+                throw new NullPointerException("refreshExecutor == null");
+            }
+            this.refreshExecutor = refreshExecutor;
+            return this;
+        }
+
+        public HashLruCache<K, V> build() {
+            return new HashLruCache<>(this);
+        }
     }
 
     @Override
     public String toString() {
         return "HashLruCache{" +
-                "table=" + Arrays.toString(table) +
+                "table=" + Arrays.toString(shards.table) +
+                ", size=" + size() +
                 ", maxSize=" + maxSize +
-                ", putCount=" + putCount +
+                ", stats=" + stats() +
                 '}';
     }
 }
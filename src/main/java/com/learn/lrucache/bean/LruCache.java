@@ -16,12 +16,26 @@ package com.learn.lrucache.bean;
  */
 
 import com.alibaba.fastjson.JSON;
+import com.learn.lrucache.bean.io.Serializer;
+import com.learn.lrucache.bean.io.SnapshotReader;
+import com.learn.lrucache.bean.io.SnapshotWriter;
+import com.learn.lrucache.bean.policy.EvictionPolicy;
+import com.learn.lrucache.bean.stats.CacheStats;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Static library version of {@code android.util.LruCache}. Used to write apps
@@ -60,7 +74,9 @@ import java.util.Map;
  * 《图解LinkedHashMap原理》：https://www.jianshu.com/p/8f4f58b4b8ab
  * 《LruCache 和 DiskLruCache 的使用以及原理分析》：LruCache 和 DiskLruCache 的使用以及原理分析
  */
-public class LruCache<K, V> {
+public class LruCache<K, V> implements Cache<K, V> {
+    // trimToSize每次加锁最多逐出的数据条数，避免逐出大量数据（resize、evictAll）时长时间阻塞读写
+    private static final int EVICTION_BATCH = 256;
     // 容器 (每次访问一个元素（get或put），被访问的元素都被提到最后面去了)
     private final LinkedHashMap<K, V> map;
 
@@ -68,32 +84,79 @@ public class LruCache<K, V> {
      * Size of this cache in units. Not necessarily the number of elements.
      * 以单位为单位的缓存的大小。不一定是元素的数量。
      */
+    // 按大小（而不是条数）计算容量时，所有数据之和很容易超过2GB，所以使用long
     //当前缓存的大小
-    private int size;
-    //最大可缓存的大小
-    private int maxSize;
+    private long size;
+    //最大可缓存的大小，put等方法会在锁外读取，volatile保证long的读写是原子的
+    private volatile long maxSize;
 
+    // 以下计数使用long，高QPS下int一天之内就会溢出；int的getter会饱和在Integer.MAX_VALUE
     //put缓存的次数
-    private int putCount;
+    private long putCount;
     //创建的次数，只有实现了create(key)方法后才会累加
-    private int createCount;
+    private long createCount;
     //逐出缓存的次数
-    private int evictionCount;
+    private long evictionCount;
     //命中缓存的次数
-    private int hitCount;
+    private long hitCount;
     //丢失缓存的次数
-    private int missCount;
+    private long missCount;
+    //create抛出异常的次数
+    private long createFailureCount;
+    //create的总耗时（纳秒），不包括返回null的调用
+    private long totalCreateTime;
+
+    //合并同一个key的并发create，为null表示每个未命中的线程都各自调用create
+    @Nullable
+    private final SingleFlight<K, V> singleFlight;
+
+    //淘汰策略，为null时使用LinkedHashMap的访问顺序实现LRU
+    @Nullable
+    private final EvictionPolicy<K> policy;
 
     /**
      * @param maxSize for caches that do not override {@link #sizeOf}, this is
      *                the maximum number of entries in the cache. For all other caches,
      *                this is the maximum sum of the sizes of the entries in this cache.
      */
-    public LruCache(int maxSize) {
+    public LruCache(long maxSize) {
+        this(maxSize, null, null);
+    }
+
+    /**
+     * @param maxSize      see {@link #LruCache(long)}.
+     * @param singleFlight 非null时，同一个key并发未命中只会调用一次 {@link #create}，
+     *                     其它线程等待并共享这次的结果，避免热点key过期时大量请求同时打到后端。
+     */
+    public LruCache(long maxSize, @Nullable SingleFlight<K, V> singleFlight) {
+        this(maxSize, null, singleFlight);
+    }
+
+    /**
+     * @param maxSize see {@link #LruCache(long)}.
+     * @param policy  决定逐出哪个key的淘汰策略，内置的有
+     *                {@link com.learn.lrucache.bean.policy.SlruPolicy}、{@link com.learn.lrucache.bean.policy.TwoQueuePolicy}、
+     *                {@link com.learn.lrucache.bean.policy.ArcPolicy}、{@link com.learn.lrucache.bean.policy.ClockPolicy}、
+     *                {@link com.learn.lrucache.bean.policy.WTinyLfuPolicy}。
+     *                策略实例有状态，不能在多个缓存之间共享。
+     */
+    public LruCache(long maxSize, @NonNull EvictionPolicy<K> policy) {
+        this(maxSize, policy, null);
+    }
+
+    /**
+     * @param maxSize      see {@link #LruCache(long)}.
+     * @param policy       为null时使用默认的LRU。
+     * @param singleFlight see {@link #LruCache(long, SingleFlight)}.
+     */
+    public LruCache(long maxSize, @Nullable EvictionPolicy<K> policy,
+                    @Nullable SingleFlight<K, V> singleFlight) {
         if (maxSize <= 0) {
             throw new IllegalArgumentException("maxSize <= 0");
         }
         this.maxSize = maxSize;
+        this.singleFlight = singleFlight;
+        this.policy = policy;
 
         /**
          * LinkedHashMap继承自HashMap，而且内部维护着一个双向队列，可以设置根据访问动作或者插入动作来调整顺序。
@@ -111,8 +174,9 @@ public class LruCache<K, V> {
          * @param  loadFactor      the load factor
          * @param  accessOrder     the ordering mode - <tt>true</tt> for access-order, <tt>false</tt> for insertion-order
          *                         排序模式，true表示在访问的时候进行排序( LruCache 核心工作原理就在此)，false表示在插入的时才排序。
+         *                         使用淘汰策略时顺序由策略维护，不需要LinkedHashMap在每次get时调整链表。
          */
-        this.map = new LinkedHashMap<K, V>(0, 0.75f, true);
+        this.map = new LinkedHashMap<K, V>(0, 0.75f, policy == null);
     }
 
     /**
@@ -146,6 +210,7 @@ public class LruCache<K, V> {
             if (previous != null) {
                 size -= safeSizeOf(key, previous); // 减去旧的value的size
             }
+            recordWrite(key, previous);
         }
 
         if (previous != null) {
@@ -165,18 +230,20 @@ public class LruCache<K, V> {
      * 最近未被访问过的键值对并删除，更新size。重复此步骤直到缓存<=最大容量。不得不说利用
      * 访问顺序的LinkedHashMap的特性完成LRU缓存，非常巧妙。
      * <p>
+     * 每次加锁用同一个迭代器连续逐出最多 {@link #EVICTION_BATCH} 条数据，释放锁之后再统一回调
+     * {@link #entryRemoved}，逐出大量数据时不会每条数据都加锁一次。
+     * <p>
      * {@link #put(Object key, Object value)} 每插入一次元素就会被调用一次
-     * {@link #resize(int maxSize)} 重设最大数量时调用
+     * {@link #resize(long maxSize)} 重设最大数量时调用
      * {@link #evictAll()} 逐出所有缓存时调用
      * {@link #get(Object key)} 当create(key)复写时且map.put()返回为空时执行
      *
      * @param maxSize the maximum size of the cache before returning. May be -1
      *                to evict even 0-sized elements.
      */
-    public void trimToSize(int maxSize) {
+    public void trimToSize(long maxSize) {
         while (true) {
-            K key;
-            V value;
+            List<Removal<K, V>> evicted;
             synchronized (this) {
                 if (size < 0 || (map.isEmpty() && size != 0)) {
                     throw new IllegalStateException(getClass().getName()
@@ -187,16 +254,39 @@ public class LruCache<K, V> {
                     break;
                 }
 
-                // 取出LinkedHashMap的entrySet的头部，最早被插入且最近未被访问过的键值对并删除
-                Map.Entry<K, V> toEvict = map.entrySet().iterator().next();
-                key = toEvict.getKey();
-                value = toEvict.getValue();
-                map.remove(key);
-                size -= safeSizeOf(key, value);
-                evictionCount++;
+                // 一次加锁逐出一批数据，LRU时只创建一个迭代器；entryRemoved在释放锁之后统一回调
+                evicted = new ArrayList<>();
+                if (policy != null) {
+                    // 由淘汰策略选出要逐出的key
+                    while (size > maxSize && !map.isEmpty() && evicted.size() < EVICTION_BATCH) {
+                        K key = policy.victim();
+                        V value = key == null ? null : map.remove(key);
+                        if (value == null) {
+                            throw new IllegalStateException(policy.getClass().getName()
+                                    + ".victim() is reporting inconsistent results!");
+                        }
+                        policy.recordRemoval(key, true);
+                        size -= safeSizeOf(key, value);
+                        evicted.add(new Removal<>(key, value, null));
+                    }
+                } else {
+                    // 从LinkedHashMap的头部（最早被插入且最近未被访问过的键值对）开始依次删除
+                    Iterator<Map.Entry<K, V>> it = map.entrySet().iterator();
+                    while (size > maxSize && it.hasNext() && evicted.size() < EVICTION_BATCH) {
+                        Map.Entry<K, V> toEvict = it.next();
+                        K key = toEvict.getKey();
+                        V value = toEvict.getValue();
+                        it.remove();
+                        size -= safeSizeOf(key, value);
+                        evicted.add(new Removal<>(key, value, null));
+                    }
+                }
+                evictionCount += evicted.size();
             }
 
-            entryRemoved(true, key, value, null);
+            for (Removal<K, V> removal : evicted) {
+                entryRemoved(true, removal.key, removal.oldValue, null);
+            }
         }
     }
 
@@ -217,11 +307,46 @@ public class LruCache<K, V> {
             mapValue = map.get(key);
             if (mapValue != null) {
                 hitCount++;
+                if (policy != null) {
+                    policy.recordAccess(key);
+                }
                 return mapValue;
             }
             missCount++;
         }
 
+        if (singleFlight != null) {
+            // 同一个key只有一个线程执行create并放入缓存，其它线程直接拿到这个结果
+            return singleFlight.load(key, this::recheckAndCreate);
+        }
+        return createAndPut(key);
+    }
+
+    /**
+     * SingleFlight中leader的加载：在get未命中之后、成为leader之前，上一个leader可能刚刚放入并结束，
+     * 所以先在锁内再查一次，已经有值时直接返回，不再重复调用create
+     */
+    @Nullable
+    private V recheckAndCreate(@NonNull K key) {
+        synchronized (this) {
+            V mapValue = map.get(key);
+            if (mapValue != null) {
+                if (policy != null) {
+                    policy.recordAccess(key);
+                }
+                return mapValue;
+            }
+        }
+        return createAndPut(key);
+    }
+
+    /**
+     * 未命中时调用create创建值并放入缓存，返回最终留在缓存中的值
+     */
+    @Nullable
+    private V createAndPut(@NonNull K key) {
+        V mapValue;
+
         /*
          * Attempt to create a value. This may take a long time, and the map
          * may be different when create() returns. If a conflicting value was
@@ -229,13 +354,22 @@ public class LruCache<K, V> {
          * the map and release the created value.
          */
         // 默认是返回null，可以重写表示新建一个默认值
-        V createdValue = create(key);
+        long start = System.nanoTime();
+        V createdValue;
+        try {
+            createdValue = create(key);
+        } catch (RuntimeException | Error e) {
+            recordCreateFailure(System.nanoTime() - start);
+            throw e;
+        }
         if (createdValue == null) {
             return null;
         }
+        long createTime = System.nanoTime() - start;
 
         synchronized (this) {
             createCount++;
+            totalCreateTime += createTime;
             mapValue = map.put(key, createdValue);
 
             if (mapValue != null) {
@@ -244,6 +378,7 @@ public class LruCache<K, V> {
                 map.put(key, mapValue);
             } else {
                 size += safeSizeOf(key, createdValue);
+                recordWrite(key, null);
             }
         }
 
@@ -256,13 +391,185 @@ public class LruCache<K, V> {
         }
     }
 
+    /**
+     * 返回key对应的值并更新访问顺序，不计入命中/未命中统计，也不会调用create。
+     * 供同一个包内的分片实现在持有锁时查找已有的数据。
+     */
+    @Nullable
+    synchronized V touch(@NonNull K key) {
+        V mapValue = map.get(key);
+        if (mapValue != null && policy != null) {
+            policy.recordAccess(key);
+        }
+        return mapValue;
+    }
+
+    /**
+     * Returns the values for {@code keys} that exist in the cache or can be
+     * created by {@link #createAll}. Keys that are neither cached nor created
+     * are absent from the returned map, which follows the iteration order of
+     * {@code keys}.
+     * <p>
+     * 批量获取：所有命中在一次加锁内完成，所有未命中的key交给一次 {@link #createAll} 调用
+     * （例如一次Redis MGET），创建的值也在一次加锁内放入缓存。
+     * 批量创建不经过 {@link SingleFlight} 合并。
+     */
+    @NonNull
+    public Map<K, V> getAll(@NonNull Collection<? extends K> keys) {
+        Map<K, V> found = new LinkedHashMap<>();
+        Set<K> missing = new LinkedHashSet<>();
+        synchronized (this) {
+            for (K key : keys) {
+                if (key == null) {
+                    throw new NullPointerException("key == null");
+                }
+                if (found.containsKey(key) || missing.contains(key)) {
+                    continue;
+                }
+                V mapValue = map.get(key);
+                if (mapValue != null) {
+                    hitCount++;
+                    if (policy != null) {
+                        policy.recordAccess(key);
+                    }
+                    found.put(key, mapValue);
+                } else {
+                    missCount++;
+                    missing.add(key);
+                }
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        long start = System.nanoTime();
+        Map<K, V> created;
+        try {
+            created = createAll(missing);
+        } catch (RuntimeException | Error e) {
+            recordCreateFailure(System.nanoTime() - start);
+            throw e;
+        }
+        if (created == null || created.isEmpty()) {
+            return found;
+        }
+        long createTime = System.nanoTime() - start;
+
+        // 与get相同：创建期间其它线程可能已经放入了同一个key，此时保留已有的值
+        List<Removal<K, V>> conflicts = null;
+        synchronized (this) {
+            totalCreateTime += createTime;
+            for (K key : missing) {
+                V createdValue = created.get(key);
+                if (createdValue == null) {
+                    continue;
+                }
+                createCount++;
+                V mapValue = map.put(key, createdValue);
+                if (mapValue != null) {
+                    map.put(key, mapValue);
+                    found.put(key, mapValue);
+                    if (conflicts == null) {
+                        conflicts = new ArrayList<>();
+                    }
+                    conflicts.add(new Removal<>(key, createdValue, mapValue));
+                } else {
+                    size += safeSizeOf(key, createdValue);
+                    recordWrite(key, null);
+                    found.put(key, createdValue);
+                }
+            }
+        }
+
+        if (conflicts != null) {
+            for (Removal<K, V> conflict : conflicts) {
+                entryRemoved(false, conflict.key, conflict.oldValue, conflict.newValue);
+            }
+        }
+        trimToSize(maxSize);
+
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            V value = found.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Caches all of the mappings in {@code entries}, taking the lock once for
+     * the whole batch and trimming once at the end.
+     */
+    public void putAll(@NonNull Map<? extends K, ? extends V> entries) {
+        List<Removal<K, V>> replaced = null;
+        synchronized (this) {
+            for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+                K key = entry.getKey();
+                V value = entry.getValue();
+                if (key == null || value == null) {
+                    throw new NullPointerException("key == null || value == null");
+                }
+                putCount++;
+                size += safeSizeOf(key, value);
+                V previous = map.put(key, value);
+                recordWrite(key, previous);
+                if (previous != null) {
+                    size -= safeSizeOf(key, previous);
+                    if (replaced == null) {
+                        replaced = new ArrayList<>();
+                    }
+                    replaced.add(new Removal<>(key, previous, value));
+                }
+            }
+        }
+
+        if (replaced != null) {
+            for (Removal<K, V> removal : replaced) {
+                entryRemoved(false, removal.key, removal.oldValue, removal.newValue);
+            }
+        }
+        trimToSize(maxSize);
+    }
+
+    /**
+     * Removes the entries for {@code keys} under a single lock acquisition.
+     *
+     * @return the removed mappings.
+     */
+    @NonNull
+    public Map<K, V> removeAll(@NonNull Collection<? extends K> keys) {
+        Map<K, V> removed = new LinkedHashMap<>();
+        synchronized (this) {
+            for (K key : keys) {
+                if (key == null) {
+                    throw new NullPointerException("key == null");
+                }
+                V previous = map.remove(key);
+                if (previous != null) {
+                    size -= safeSizeOf(key, previous);
+                    recordRemoval(key);
+                    removed.put(key, previous);
+                }
+            }
+        }
+
+        for (Map.Entry<K, V> entry : removed.entrySet()) {
+            entryRemoved(false, entry.getKey(), entry.getValue(), null);
+        }
+        return removed;
+    }
+
     /**
      * Sets the size of the cache.
      * 重置最大数量
      *
      * @param maxSize The new maximum size.
      */
-    public void resize(int maxSize) {
+    public void resize(long maxSize) {
         if (maxSize <= 0) {
             throw new IllegalArgumentException("maxSize <= 0");
         }
@@ -289,6 +596,7 @@ public class LruCache<K, V> {
             previous = map.remove(key);
             if (previous != null) {
                 size -= safeSizeOf(key, previous);
+                recordRemoval(key);
             }
         }
 
@@ -299,6 +607,32 @@ public class LruCache<K, V> {
         return previous;
     }
 
+    /**
+     * Removes the entry for {@code key} only if it is currently mapped to
+     * {@code value}. Unlike {@link #get}, the lookup does not change the
+     * access order.
+     * <p>
+     * 条件删除，用于过期清理等场景：只有当前值仍是调用方看到的那个值时才删除，避免误删并发写入的新值。
+     *
+     * @return true if the entry was removed.
+     */
+    public boolean remove(@NonNull K key, @NonNull V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("key == null || value == null");
+        }
+
+        synchronized (this) {
+            if (!map.remove(key, value)) {
+                return false;
+            }
+            size -= safeSizeOf(key, value);
+            recordRemoval(key);
+        }
+
+        entryRemoved(false, key, value, null);
+        return true;
+    }
+
     /**
      * Called for entries that have been evicted or removed. This method is
      * invoked when a value is evicted to make space, removed by a call to
@@ -332,12 +666,66 @@ public class LruCache<K, V> {
      * at the same time (causing multiple values to be created), or when one
      * thread calls {@link #put} while another is creating a value for the same
      * key.
+     *
+     * <p>When the cache was constructed with a {@link SingleFlight}, concurrent
+     * misses for the same key are coalesced and this method is called once
+     * for all of them.
      */
     @Nullable
     protected V create(@NonNull K key) {
         return null;
     }
 
+    /**
+     * Called after a batch of cache misses in {@link #getAll} to compute the
+     * values for all of the missing keys at once. Keys without a value are
+     * simply left out of the returned map. The default implementation calls
+     * {@link #create} for each key; override it to load the whole batch in a
+     * single round trip.
+     *
+     * <p>The method is called without synchronization: other threads may
+     * access the cache while this method is executing.
+     */
+    @Nullable
+    protected Map<K, V> createAll(@NonNull Collection<K> keys) {
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            V value = create(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    private synchronized void recordCreateFailure(long createTime) {
+        createFailureCount++;
+        totalCreateTime += createTime;
+    }
+
+    /**
+     * 写入后通知淘汰策略，需要持有锁
+     */
+    private void recordWrite(K key, @Nullable V previous) {
+        if (policy == null) {
+            return;
+        }
+        if (previous == null) {
+            policy.recordInsert(key);
+        } else {
+            policy.recordAccess(key);
+        }
+    }
+
+    /**
+     * 主动删除后通知淘汰策略，需要持有锁
+     */
+    private void recordRemoval(K key) {
+        if (policy != null) {
+            policy.recordRemoval(key, false);
+        }
+    }
+
     private int safeSizeOf(K key, V value) {
         int result = sizeOf(key, value);
         if (result < 0) {
@@ -352,6 +740,10 @@ public class LruCache<K, V> {
      * is the number of entries and max size is the maximum number of entries.
      *
      * <p>An entry's size must not change while it is in the cache.
+     *
+     * <p>单条数据的大小是int，所有数据的大小之和是long，可以超过2GB。
+     * 该方法在put、逐出和删除时都会在锁内调用，应该是O(1)的；
+     * 需要昂贵计算的大小应该在放入之前算好并保存在value中，这里只读取字段。
      */
     protected int sizeOf(@NonNull K key, @NonNull V value) {
         return 1;
@@ -370,6 +762,13 @@ public class LruCache<K, V> {
      * the sizes of the entries in this cache.
      */
     public synchronized final int size() {
+        return saturatedCast(size);
+    }
+
+    /**
+     * 与 {@link #size()} 相同，但不会饱和在Integer.MAX_VALUE，用于按字节等单位计算容量的缓存
+     */
+    public synchronized final long weightedSize() {
         return size;
     }
 
@@ -379,6 +778,13 @@ public class LruCache<K, V> {
      * maximum sum of the sizes of the entries in this cache.
      */
     public synchronized final int maxSize() {
+        return saturatedCast(maxSize);
+    }
+
+    /**
+     * 与 {@link #maxSize()} 相同，但不会饱和在Integer.MAX_VALUE
+     */
+    public synchronized final long maxWeight() {
         return maxSize;
     }
 
@@ -387,7 +793,7 @@ public class LruCache<K, V> {
      * already present in the cache.
      */
     public synchronized final int hitCount() {
-        return hitCount;
+        return saturatedCast(hitCount);
     }
 
     /**
@@ -395,38 +801,121 @@ public class LruCache<K, V> {
      * value to be created.
      */
     public synchronized final int missCount() {
-        return missCount;
+        return saturatedCast(missCount);
     }
 
     /**
      * Returns the number of times {@link #create(Object)} returned a value.
      */
     public synchronized final int createCount() {
-        return createCount;
+        return saturatedCast(createCount);
     }
 
     /**
      * Returns the number of times {@link #put} was called.
      */
     public synchronized final int putCount() {
-        return putCount;
+        return saturatedCast(putCount);
     }
 
     /**
      * Returns the number of values that have been evicted.
      */
     public synchronized final int evictionCount() {
-        return evictionCount;
+        return saturatedCast(evictionCount);
+    }
+
+    /**
+     * 返回long计数的统计快照。create的调用按加载统计：返回值的次数为加载成功，抛出异常的次数为加载失败，
+     * 返回null表示没有可加载的值，不计入加载统计。
+     */
+    public synchronized final CacheStats stats() {
+        return new CacheStats(hitCount, missCount, putCount, evictionCount, 0,
+                createCount, createFailureCount, totalCreateTime);
+    }
+
+    private static int saturatedCast(long value) {
+        return value > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) value;
+    }
+
+    /**
+     * 是否包含key。与get不同，不改变访问顺序，不计入统计，也不通知淘汰策略
+     */
+    synchronized boolean containsKey(@NonNull K key) {
+        return map.containsKey(key);
+    }
+
+    /**
+     * 按从旧到新的顺序复制所有value的引用，比 {@link #snapshot()} 少了重建LinkedHashMap的开销
+     */
+    @SuppressWarnings("unchecked")
+    synchronized List<V> values() {
+        return (List<V>) Arrays.asList(map.values().toArray());
+    }
+
+    /**
+     * 把缓存写成二进制快照文件，格式见 {@link SnapshotWriter}。
+     * <p>
+     * 锁内只把key和value的引用复制到两个数组，序列化和写文件都在锁外进行；
+     * 没有淘汰策略时数据按从旧到新的顺序写入，{@link #loadSnapshot} 按同样的顺序放入即可还原LRU顺序。
+     * 使用 {@link EvictionPolicy} 时LinkedHashMap是插入顺序，快照按插入顺序写入，
+     * 加载后只还原缓存的内容，不还原策略中的访问顺序和频率等状态。
+     *
+     * @return 写入的数据条数
+     */
+    @SuppressWarnings("unchecked")
+    public final long writeSnapshot(@NonNull Path path, @NonNull Serializer<K> keySerializer,
+                                    @NonNull Serializer<V> valueSerializer) throws IOException {
+        Object[] keys;
+        Object[] values;
+        synchronized (this) {
+            keys = map.keySet().toArray();
+            values = map.values().toArray();
+        }
+        try (SnapshotWriter<K, V> writer = SnapshotWriter.create(path, keySerializer, valueSerializer)) {
+            for (int i = 0; i < keys.length; i++) {
+                writer.write((K) keys[i], (V) values[i], SnapshotWriter.NO_EXPIRY);
+            }
+            return writer.commit();
+        }
+    }
+
+    /**
+     * 从快照文件加载数据，按文件中的顺序依次put，已有的数据会被覆盖
+     *
+     * @return 加载的数据条数
+     */
+    public final long loadSnapshot(@NonNull Path path, @NonNull Serializer<K> keySerializer,
+                                   @NonNull Serializer<V> valueSerializer) throws IOException {
+        try (SnapshotReader<K, V> reader = SnapshotReader.open(path, keySerializer, valueSerializer)) {
+            return reader.forEach((key, value, remainingMillis) -> put(key, value));
+        }
     }
 
     /**
      * Returns a copy of the current contents of the cache, ordered from least
-     * recently accessed to most recently accessed.
+     * recently accessed to most recently accessed. When the cache was
+     * constructed with an {@link EvictionPolicy}, the copy is in insertion order.
      */
     public synchronized final Map<K, V> snapshot() {
         return new LinkedHashMap<K, V>(map);
     }
 
+    /**
+     * 批量操作中在锁内记录、锁外回调 {@link #entryRemoved} 的数据
+     */
+    private static final class Removal<K, V> {
+        private final K key;
+        private final V oldValue;
+        private final V newValue;
+
+        Removal(K key, V oldValue, V newValue) {
+            this.key = key;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+    }
+
     @Override
     public synchronized String toString() {
         return JSON.toJSONString(map);
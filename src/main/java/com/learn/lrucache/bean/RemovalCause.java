@@ -0,0 +1,32 @@
+package com.learn.lrucache.bean;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 数据被移出缓存的原因
+ */
+public enum RemovalCause {
+    /**
+     * 调用remove删除
+     */
+    EXPLICIT,
+    /**
+     * 被put同一个key的新值替换
+     */
+    REPLACED,
+    /**
+     * 已过期，在读取或后台清理时删除
+     */
+    EXPIRED,
+    /**
+     * 容量不足被逐出
+     */
+    SIZE;
+
+    /**
+     * 是否由缓存自己淘汰（而不是调用方主动删除或替换）
+     */
+    public boolean wasEvicted() {
+        return this == EXPIRED || this == SIZE;
+    }
+}
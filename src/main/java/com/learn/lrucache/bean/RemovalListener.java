@@ -0,0 +1,17 @@
+package com.learn.lrucache.bean;
+
+import org.springframework.lang.NonNull;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 数据被移出缓存后的回调
+ * <p>
+ * 对于 {@link HashLruCache}，如果数据被移出时仍有未关闭的 {@link HashLruCache.Lease}，
+ * 回调会推迟到最后一个租约关闭时才执行，此时可以安全地回收或复用value。
+ */
+@FunctionalInterface
+public interface RemovalListener<K, V> {
+
+    void onRemoval(@NonNull K key, @NonNull V value, @NonNull RemovalCause cause);
+}
@@ -0,0 +1,83 @@
+package com.learn.lrucache.bean;
+
+import com.learn.lrucache.bean.diagnostics.HotKey;
+import com.learn.lrucache.bean.diagnostics.ShardDiagnostics;
+import com.learn.lrucache.bean.diagnostics.SpaceSaving;
+import com.learn.lrucache.bean.stats.CacheStats;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description HashLruCache单个分片的诊断探针
+ * <p>
+ * 每 sampleInterval 次get/put随机采样一次，被采样的操作会测量获取分片锁的等待时间和持有时间，
+ * 并把key交给Space-Saving统计热点。热点统计有自己的锁，不会延长分片锁的持有时间；
+ * 采样率足够低时它的竞争可以忽略。
+ */
+final class ShardProbe<K> {
+    // 每个分片保留的热点key计数器数量
+    static final int HOT_KEY_CAPACITY = 64;
+
+    private final int sampleMask;
+    private final LongAdder lockSamples = new LongAdder();
+    private final LongAdder lockWaitNanos = new LongAdder();
+    private final LongAdder lockHoldNanos = new LongAdder();
+    private final LongAccumulator maxLockWaitNanos = new LongAccumulator(Math::max, 0L);
+    private final LongAccumulator maxLockHoldNanos = new LongAccumulator(Math::max, 0L);
+    private final SpaceSaving<K> hotKeys = new SpaceSaving<>(HOT_KEY_CAPACITY);
+
+    /**
+     * @param sampleInterval 采样间隔，必须是2的幂
+     */
+    ShardProbe(int sampleInterval) {
+        this.sampleMask = sampleInterval - 1;
+    }
+
+    /**
+     * 本次操作是否采样
+     */
+    boolean sample() {
+        return (ThreadLocalRandom.current().nextInt() & sampleMask) == 0;
+    }
+
+    /**
+     * 记录一次被采样的操作
+     *
+     * @param waitNanos 获取分片锁的耗时
+     * @param holdNanos 持有分片锁的耗时
+     */
+    void record(K key, long waitNanos, long holdNanos) {
+        lockSamples.increment();
+        lockWaitNanos.add(waitNanos);
+        lockHoldNanos.add(holdNanos);
+        maxLockWaitNanos.accumulate(waitNanos);
+        maxLockHoldNanos.accumulate(holdNanos);
+        hotKeys.offer(key);
+    }
+
+    /**
+     * 采样到的热点key，次数为采样次数
+     */
+    List<HotKey<K>> hotKeys(int k) {
+        return hotKeys.topK(k);
+    }
+
+    /**
+     * 采样到的访问总次数
+     */
+    long sampledAccesses() {
+        return hotKeys.total();
+    }
+
+    ShardDiagnostics snapshot(int index, long size, long maxSize, CacheStats stats) {
+        return new ShardDiagnostics(index, size, maxSize,
+                stats.hitCount(), stats.missCount(), stats.putCount(), stats.evictionCount(),
+                lockSamples.sum(), lockWaitNanos.sum(), maxLockWaitNanos.get(),
+                lockHoldNanos.sum(), maxLockHoldNanos.get());
+    }
+}
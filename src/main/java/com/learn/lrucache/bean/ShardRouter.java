@@ -0,0 +1,31 @@
+package com.learn.lrucache.bean;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 根据key的hash选择分片
+ * <p>
+ * - {@link #highBits()}：乘以黄金分割常数后取高位（multiply-shift），分片数为2的幂时就是取hash的高log2(n)位。
+ * 每次计算只有一次乘法，但分片数变化时几乎所有key都会换分片
+ * - {@link #jump()}：Jump Consistent Hash（Lamping &amp; Veach, 2014），分片数从n变为m时只有 |m-n|/max(m,n) 的key换分片，
+ * 并且总是在新增（或被删除）的分片和原来的分片之间移动；计算为O(log n)
+ * <p>
+ * 重新分片（{@link HashLruCache#reshard(int)}）需要迁移的数据量取决于路由方式，频繁调整分片数时应该使用jump。
+ */
+public interface ShardRouter {
+
+    /**
+     * @param hash   key的hash，见 {@link HashLruCache#hash(Object)}
+     * @param shards 分片数量，大于0
+     * @return [0, shards) 之间的分片下标
+     */
+    int route(int hash, int shards);
+
+    static ShardRouter highBits() {
+        return ShardRouters.HIGH_BITS;
+    }
+
+    static ShardRouter jump() {
+        return ShardRouters.JUMP;
+    }
+}
@@ -0,0 +1,38 @@
+package com.learn.lrucache.bean;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 内置的分片路由
+ */
+enum ShardRouters implements ShardRouter {
+    HIGH_BITS {
+        /**
+         * 先乘以黄金分割常数把所有位混合到高位，再把 [0, 2^32) 线性映射到 [0, shards)。
+         * 分片内部的LinkedHashMap用hash的低位选择桶，如果分片也用低位，同一个分片里所有key的低位都相同，
+         * LinkedHashMap只有 1/shards 的桶会被用到；取高位则不会有这个问题。
+         */
+        @Override
+        public int route(int hash, int shards) {
+            return (int) (((hash * GOLDEN_RATIO) & 0xFFFFFFFFL) * shards >>> 32);
+        }
+    },
+    JUMP {
+        @Override
+        public int route(int hash, int shards) {
+            // Jump Consistent Hash需要64位的key，先把hash混合到64位
+            long key = (hash & 0xFFFFFFFFL) * 0x9E3779B97F4A7C15L;
+            key ^= key >>> 29;
+            long b = -1;
+            long j = 0;
+            while (j < shards) {
+                b = j;
+                key = key * 2862933555777941757L + 1;
+                j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+            }
+            return (int) b;
+        }
+    };
+
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+}
@@ -0,0 +1,137 @@
+package com.learn.lrucache.bean;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 合并同一个key的并发加载
+ * <p>
+ * 热点key未命中时，所有并发请求都会去调用 {@code create(key)}，如果create是一次Redis查询，
+ * 一个热点key过期就会变成成百上千次相同的后端请求（缓存击穿）。
+ * <p>
+ * SingleFlight保证同一时刻每个key只有一个加载在执行：第一个线程（leader）负责加载，
+ * 其它线程等待leader的结果。加载失败或等待超时时的行为可以通过 {@link Fallback} 配置。
+ * <p>
+ * 正在进行的加载只按key区分，一个SingleFlight实例只能给一个缓存使用：
+ * 两个缓存共用同一个实例并且key有重叠时，一个缓存的请求会拿到另一个缓存加载出来的值。
+ */
+public class SingleFlight<K, V> {
+
+    public enum Fallback {
+        /**
+         * 返回null，当作未命中处理
+         */
+        RETURN_NULL,
+        /**
+         * 抛出异常：加载失败时抛出原始的RuntimeException，其它情况包装为 {@link CacheLoadException}
+         */
+        THROW,
+        /**
+         * 由当前线程自己再加载一次
+         */
+        LOAD
+    }
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    // 等待leader的超时时间（毫秒），小于等于0表示一直等待
+    private final long timeout;
+    private final Fallback onFailure;
+    private final Fallback onTimeout;
+
+    /**
+     * 一直等待leader，加载失败时抛出异常
+     */
+    public SingleFlight() {
+        this(0, Fallback.THROW, Fallback.THROW);
+    }
+
+    /**
+     * @param timeout   等待leader的超时时间（毫秒），小于等于0表示一直等待
+     * @param onFailure leader加载失败时等待者的行为
+     * @param onTimeout 等待超时时的行为
+     */
+    public SingleFlight(long timeout, @NonNull Fallback onFailure, @NonNull Fallback onTimeout) {
+        if (onFailure == null || onTimeout == null) {
+            throw new NullPointerException("onFailure == null || onTimeout == null");
+        }
+        this.timeout = timeout;
+        this.onFailure = onFailure;
+        this.onTimeout = onTimeout;
+    }
+
+    /**
+     * 加载key对应的值，同一个key的并发调用只会执行一次loader。
+     * leader自己加载失败时，onFailure为 {@link Fallback#RETURN_NULL} 则返回null，否则抛出原始异常。
+     */
+    @Nullable
+    public V load(@NonNull K key, @NonNull Function<? super K, ? extends V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing == null) {
+            try {
+                V value = loader.apply(key);
+                future.complete(value);
+                return value;
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+                if (onFailure == Fallback.RETURN_NULL) {
+                    return null;
+                }
+                throw e;
+            } catch (Error e) {
+                future.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, future);
+            }
+        }
+        return await(key, existing, loader);
+    }
+
+    /**
+     * 正在加载中的key的数量
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private V await(K key, CompletableFuture<V> future, Function<? super K, ? extends V> loader) {
+        try {
+            return timeout > 0 ? future.get(timeout, TimeUnit.MILLISECONDS) : future.get();
+        } catch (ExecutionException e) {
+            return fallback(onFailure, key, loader, e.getCause());
+        } catch (TimeoutException e) {
+            return fallback(onTimeout, key, loader, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheLoadException("Interrupted while waiting for " + key, e);
+        }
+    }
+
+    private V fallback(Fallback fallback, K key, Function<? super K, ? extends V> loader, Throwable cause) {
+        switch (fallback) {
+            case RETURN_NULL:
+                return null;
+            case LOAD:
+                return loader.apply(key);
+            case THROW:
+            default:
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new CacheLoadException("Failed to load " + key, cause);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.learn.lrucache.bean;
+
+import java.util.function.Consumer;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 分层时间轮，用于增量清理过期数据
+ * <p>
+ * 时间轮按过期时间把数据挂到不同层级的桶中，时间单位为毫秒：
+ * - 第0层：64个桶，每个桶跨度约1秒（2^10ms）
+ * - 第1层：64个桶，每个桶跨度约1分钟（2^16ms）
+ * - 第2层：32个桶，每个桶跨度约1小时（2^22ms）
+ * - 第3层：4个桶，每个桶跨度约1.5天（2^27ms）
+ * - 第4层：1个桶，存放更远的数据
+ * <p>
+ * 时间推进时，把已经到期的桶整体（O(1)）拼接到待处理队列中；待处理队列每次只处理有限数量的节点，
+ * 真正过期的交给回调删除，尚未过期的重新挂到更低层的桶中。这样单次清理的耗时有上限，
+ * 不会出现一次性全量扫描导致的长时间停顿。
+ * <p>
+ * 非线程安全，调用方需要持有对应分片的锁。
+ */
+final class TimerWheel {
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+    private static final int[] SHIFT = {10, 16, 22, 27, 29};
+    private static final long[] SPANS = {
+            1L << SHIFT[0],
+            1L << SHIFT[1],
+            1L << SHIFT[2],
+            1L << SHIFT[3],
+            (long) BUCKETS[3] << SHIFT[3],
+    };
+
+    private final Timer[][] wheel;
+    // 已经到期、等待处理的节点
+    private final Timer pending;
+    // 时间轮当前的时间
+    private long time;
+
+    TimerWheel(long time) {
+        this.time = time;
+        this.pending = new Sentinel();
+        this.wheel = new Timer[BUCKETS.length][];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Timer[BUCKETS[i]];
+            for (int j = 0; j < wheel[i].length; j++) {
+                wheel[i][j] = new Sentinel();
+            }
+        }
+    }
+
+    /**
+     * 按过期时间把节点挂到对应的桶中，节点不能已经在时间轮中
+     */
+    void schedule(Timer timer) {
+        Timer sentinel = findBucket(timer.getOverTime());
+        link(sentinel, timer);
+    }
+
+    /**
+     * 过期时间变化后重新挂载节点
+     */
+    void reschedule(Timer timer) {
+        deschedule(timer);
+        schedule(timer);
+    }
+
+    /**
+     * 把节点从时间轮中摘除，节点不在时间轮中时什么也不做
+     */
+    void deschedule(Timer timer) {
+        if (timer.nextInWheel != null) {
+            timer.prevInWheel.nextInWheel = timer.nextInWheel;
+            timer.nextInWheel.prevInWheel = timer.prevInWheel;
+            timer.prevInWheel = null;
+            timer.nextInWheel = null;
+        }
+    }
+
+    /**
+     * 推进时间轮并处理最多 {@code budget} 个到期节点
+     *
+     * @param now       当前时间
+     * @param budget    本次最多访问的节点数
+     * @param onExpired 处理已过期节点的回调，节点在回调前已经从时间轮中摘除
+     * @return 本次过期的节点数
+     */
+    int advance(long now, int budget, Consumer<Timer> onExpired) {
+        long previousTime = time;
+        if (now > previousTime) {
+            time = now;
+            for (int i = 0; i < SHIFT.length; i++) {
+                long previousTicks = previousTime >>> SHIFT[i];
+                long currentTicks = now >>> SHIFT[i];
+                long delta = currentTicks - previousTicks;
+                if (delta <= 0L) {
+                    break;
+                }
+                collect(i, previousTicks, delta);
+            }
+        }
+
+        int expired = 0;
+        while (budget-- > 0 && pending.nextInWheel != pending) {
+            Timer timer = pending.nextInWheel;
+            deschedule(timer);
+            if (timer.getOverTime() <= now) {
+                expired++;
+                onExpired.accept(timer);
+            } else {
+                schedule(timer);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * 待处理队列是否为空
+     */
+    boolean hasPending() {
+        return pending.nextInWheel != pending;
+    }
+
+    /**
+     * 把第index层中 (previousTicks, previousTicks + delta] 对应的桶拼接到待处理队列
+     */
+    private void collect(int index, long previousTicks, long delta) {
+        Timer[] timerWheel = wheel[index];
+        int mask = timerWheel.length - 1;
+        int start = (int) (previousTicks & mask);
+        int end = start + (int) Math.min(delta + 1, timerWheel.length);
+        for (int i = start; i < end; i++) {
+            splice(timerWheel[i & mask]);
+        }
+    }
+
+    /**
+     * 把整个桶的链表接到待处理队列的尾部，并清空该桶
+     */
+    private void splice(Timer sentinel) {
+        Timer first = sentinel.nextInWheel;
+        if (first == sentinel) {
+            return;
+        }
+        Timer last = sentinel.prevInWheel;
+        Timer tail = pending.prevInWheel;
+
+        tail.nextInWheel = first;
+        first.prevInWheel = tail;
+        last.nextInWheel = pending;
+        pending.prevInWheel = last;
+
+        sentinel.nextInWheel = sentinel;
+        sentinel.prevInWheel = sentinel;
+    }
+
+    private Timer findBucket(long overTime) {
+        long duration = overTime - time;
+        if (duration <= 0L) {
+            // 已经过期，直接放入待处理队列
+            return pending;
+        }
+        int length = wheel.length - 1;
+        for (int i = 0; i < length; i++) {
+            if (duration < SPANS[i + 1]) {
+                long ticks = overTime >>> SHIFT[i];
+                int index = (int) (ticks & (wheel[i].length - 1));
+                return wheel[i][index];
+            }
+        }
+        return wheel[length][0];
+    }
+
+    private static void link(Timer sentinel, Timer timer) {
+        timer.prevInWheel = sentinel.prevInWheel;
+        timer.nextInWheel = sentinel;
+        sentinel.prevInWheel.nextInWheel = timer;
+        sentinel.prevInWheel = timer;
+    }
+
+    /**
+     * 时间轮中的节点，通过侵入式双向链表挂在桶上，摘除为O(1)
+     */
+    abstract static class Timer {
+        Timer prevInWheel;
+        Timer nextInWheel;
+
+        /**
+         * 过期时间
+         */
+        abstract long getOverTime();
+    }
+
+    private static final class Sentinel extends Timer {
+        Sentinel() {
+            prevInWheel = this;
+            nextInWheel = this;
+        }
+
+        @Override
+        long getOverTime() {
+            return Long.MAX_VALUE;
+        }
+    }
+}
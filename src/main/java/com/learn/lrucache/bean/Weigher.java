@@ -0,0 +1,36 @@
+package com.learn.lrucache.bean;
+
+import org.springframework.lang.NonNull;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 计算数据的权重（例如序列化后的字节数），供 {@link HashLruCache} 按权重而不是条数限制容量
+ * <p>
+ * 权重只在放入时在锁外计算一次并保存在数据上，逐出和删除时直接读取，不会在分片锁内重新计算。
+ */
+@FunctionalInterface
+public interface Weigher<K, V> {
+
+    /**
+     * 返回数据的权重，不能为负数；权重为0的数据不占用容量，只会在 evictAll 时被逐出
+     */
+    int weigh(@NonNull K key, @NonNull V value);
+
+    /**
+     * 每条数据的权重都是1，即按条数计算容量
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> Weigher<K, V> singleton() {
+        return (Weigher<K, V>) SingletonWeigher.INSTANCE;
+    }
+
+    enum SingletonWeigher implements Weigher<Object, Object> {
+        INSTANCE;
+
+        @Override
+        public int weigh(Object key, Object value) {
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.learn.lrucache.bean.diagnostics;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 整个缓存的诊断数据，用来判断尾延迟来自分片太少还是单个热点key
+ * <p>
+ * - operationSkew：最忙分片的操作次数 / 分片平均操作次数。分片均匀时接近1，明显偏大说明负载集中在少数分片上
+ * - hottestKeyShare：最热的key占采样访问的比例。如果它接近1/tableSize甚至更大，
+ * 增加分片数也无法分散这部分竞争，应该考虑在调用方缓存该key或者拆分key
+ * - 所有分片的锁等待时间普遍偏高而skew不大时，说明分片数量不够
+ */
+public final class CacheDiagnostics {
+    private final int tableSize;
+    private final int sampleInterval;
+    private final int size;
+    private final int maxSize;
+    private final List<ShardDiagnostics> shards;
+    private final List<HotKey<Object>> hotKeys;
+    private final double hottestKeyShare;
+
+    /**
+     * @param hotKeys         按估计次数从大到小排列的热点key，次数已经换算为估计的总次数
+     * @param hottestKeyShare 最热的key占采样访问的比例
+     */
+    public CacheDiagnostics(int tableSize, int sampleInterval, int size, int maxSize,
+                            List<ShardDiagnostics> shards, List<HotKey<Object>> hotKeys, double hottestKeyShare) {
+        this.tableSize = tableSize;
+        this.sampleInterval = sampleInterval;
+        this.size = size;
+        this.maxSize = maxSize;
+        this.shards = Collections.unmodifiableList(shards);
+        this.hotKeys = Collections.unmodifiableList(hotKeys);
+        this.hottestKeyShare = hottestKeyShare;
+    }
+
+    public int getTableSize() {
+        return tableSize;
+    }
+
+    /**
+     * 每多少次get/put采样一次，0表示没有开启诊断
+     */
+    public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public List<ShardDiagnostics> getShards() {
+        return shards;
+    }
+
+    public List<HotKey<Object>> getHotKeys() {
+        return hotKeys;
+    }
+
+    public double getHottestKeyShare() {
+        return hottestKeyShare;
+    }
+
+    /**
+     * 最忙分片的操作次数与分片平均操作次数之比，没有任何操作时为1
+     */
+    public double getOperationSkew() {
+        long total = 0;
+        long max = 0;
+        for (ShardDiagnostics shard : shards) {
+            long count = shard.getOperationCount();
+            total += count;
+            max = Math.max(max, count);
+        }
+        return total == 0 ? 1.0 : (double) max * shards.size() / total;
+    }
+
+    /**
+     * 所有分片平均的锁等待时间（按采样次数加权）
+     */
+    public double getMeanLockWaitNanos() {
+        long samples = 0;
+        double total = 0;
+        for (ShardDiagnostics shard : shards) {
+            samples += shard.getLockSamples();
+            total += shard.getMeanLockWaitNanos() * shard.getLockSamples();
+        }
+        return samples == 0 ? 0.0 : total / samples;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheDiagnostics{" +
+                "tableSize=" + tableSize +
+                ", sampleInterval=" + sampleInterval +
+                ", size=" + size +
+                ", maxSize=" + maxSize +
+                ", operationSkew=" + getOperationSkew() +
+                ", meanLockWaitNanos=" + getMeanLockWaitNanos() +
+                ", hottestKeyShare=" + hottestKeyShare +
+                ", hotKeys=" + hotKeys +
+                '}';
+    }
+}
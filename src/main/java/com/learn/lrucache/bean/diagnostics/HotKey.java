@@ -0,0 +1,56 @@
+package com.learn.lrucache.bean.diagnostics;
+
+import java.util.Comparator;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 热点key及其估计的访问次数，真实次数在 [count - error, count] 之间
+ */
+public final class HotKey<K> {
+    static final Comparator<HotKey<?>> BY_COUNT_DESC = (a, b) -> Long.compare(b.count, a.count);
+
+    private final K key;
+    private final long count;
+    private final long error;
+
+    public HotKey(K key, long count, long error) {
+        this.key = key;
+        this.count = count;
+        this.error = error;
+    }
+
+    public K getKey() {
+        return key;
+    }
+
+    /**
+     * 估计的访问次数，不会低于真实次数
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * count可能被高估的最大值
+     */
+    public long getError() {
+        return error;
+    }
+
+    /**
+     * 按比例缩放计数，用于把采样得到的次数换算成估计的总次数
+     */
+    public HotKey<K> scale(long factor) {
+        return new HotKey<>(key, count * factor, error * factor);
+    }
+
+    @Override
+    public String toString() {
+        return "HotKey{" +
+                "key=" + key +
+                ", count=" + count +
+                ", error=" + error +
+                '}';
+    }
+}
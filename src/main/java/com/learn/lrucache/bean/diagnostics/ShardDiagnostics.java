@@ -0,0 +1,115 @@
+package com.learn.lrucache.bean.diagnostics;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 单个分片的诊断数据
+ * <p>
+ * 数据条数和操作次数总是可用；分片锁的等待和持有时间只在开启诊断时按采样统计，未开启时为0。
+ */
+public final class ShardDiagnostics {
+    private final int index;
+    private final long size;
+    private final long maxSize;
+    private final long hitCount;
+    private final long missCount;
+    private final long putCount;
+    private final long evictionCount;
+    private final long lockSamples;
+    private final long totalLockWaitNanos;
+    private final long maxLockWaitNanos;
+    private final long totalLockHoldNanos;
+    private final long maxLockHoldNanos;
+
+    public ShardDiagnostics(int index, long size, long maxSize,
+                            long hitCount, long missCount, long putCount, long evictionCount,
+                            long lockSamples, long totalLockWaitNanos, long maxLockWaitNanos,
+                            long totalLockHoldNanos, long maxLockHoldNanos) {
+        this.index = index;
+        this.size = size;
+        this.maxSize = maxSize;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.putCount = putCount;
+        this.evictionCount = evictionCount;
+        this.lockSamples = lockSamples;
+        this.totalLockWaitNanos = totalLockWaitNanos;
+        this.maxLockWaitNanos = maxLockWaitNanos;
+        this.totalLockHoldNanos = totalLockHoldNanos;
+        this.maxLockHoldNanos = maxLockHoldNanos;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getPutCount() {
+        return putCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * get和put的总次数，用来比较分片之间的负载
+     */
+    public long getOperationCount() {
+        return hitCount + missCount + putCount;
+    }
+
+    /**
+     * 采样到的加锁次数
+     */
+    public long getLockSamples() {
+        return lockSamples;
+    }
+
+    public double getMeanLockWaitNanos() {
+        return lockSamples == 0 ? 0.0 : (double) totalLockWaitNanos / lockSamples;
+    }
+
+    public long getMaxLockWaitNanos() {
+        return maxLockWaitNanos;
+    }
+
+    public double getMeanLockHoldNanos() {
+        return lockSamples == 0 ? 0.0 : (double) totalLockHoldNanos / lockSamples;
+    }
+
+    public long getMaxLockHoldNanos() {
+        return maxLockHoldNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ShardDiagnostics{" +
+                "index=" + index +
+                ", size=" + size +
+                ", maxSize=" + maxSize +
+                ", operationCount=" + getOperationCount() +
+                ", evictionCount=" + evictionCount +
+                ", lockSamples=" + lockSamples +
+                ", meanLockWaitNanos=" + getMeanLockWaitNanos() +
+                ", maxLockWaitNanos=" + maxLockWaitNanos +
+                ", meanLockHoldNanos=" + getMeanLockHoldNanos() +
+                ", maxLockHoldNanos=" + maxLockHoldNanos +
+                '}';
+    }
+}
@@ -0,0 +1,143 @@
+package com.learn.lrucache.bean.diagnostics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description Space-Saving算法（Metwally et al.），用固定数量的计数器近似统计出现次数最多的key
+ * <p>
+ * 最多保留capacity个计数器。新key到来而计数器已满时，替换当前计数最小的计数器，
+ * 新key继承它的计数并把继承的部分记为误差。对每个被保留的key，真实次数在 [count - error, count] 之间；
+ * 真实次数超过 总次数/capacity 的key一定会被保留。
+ * <p>
+ * 计数器按计数组织成最小堆，每次更新O(log capacity)。线程安全。
+ */
+public final class SpaceSaving<K> {
+    private final int capacity;
+    private final Map<K, Counter<K>> counters;
+    private final Counter<K>[] heap;
+    private int size;
+    private long total;
+
+    @SuppressWarnings("unchecked")
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity <= 0");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+        this.heap = new Counter[capacity];
+    }
+
+    public void offer(K key) {
+        offer(key, 1);
+    }
+
+    /**
+     * 记录key出现了increment次
+     */
+    public synchronized void offer(K key, long increment) {
+        if (increment <= 0) {
+            throw new IllegalArgumentException("increment <= 0");
+        }
+        total += increment;
+        Counter<K> counter = counters.get(key);
+        if (counter != null) {
+            counter.count += increment;
+            siftDown(counter.index);
+            return;
+        }
+        if (size < capacity) {
+            counter = new Counter<>(key, increment, 0);
+            counter.index = size;
+            heap[size++] = counter;
+            siftUp(counter.index);
+            counters.put(key, counter);
+            return;
+        }
+        // 替换计数最小的key，继承的计数就是新key可能被高估的部分
+        Counter<K> min = heap[0];
+        counters.remove(min.key);
+        min.key = key;
+        min.error = min.count;
+        min.count += increment;
+        counters.put(key, min);
+        siftDown(0);
+    }
+
+    /**
+     * 按计数从大到小返回最多k个key
+     */
+    public synchronized List<HotKey<K>> topK(int k) {
+        List<HotKey<K>> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(new HotKey<>(heap[i].key, heap[i].count, heap[i].error));
+        }
+        list.sort(HotKey.BY_COUNT_DESC);
+        return list.size() > k ? new ArrayList<>(list.subList(0, k)) : list;
+    }
+
+    /**
+     * 记录过的总次数
+     */
+    public synchronized long total() {
+        return total;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private void siftUp(int i) {
+        Counter<K> counter = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            place(heap[parent], i);
+            i = parent;
+        }
+        place(counter, i);
+    }
+
+    private void siftDown(int i) {
+        Counter<K> counter = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && heap[right].count < heap[child].count) {
+                child = right;
+            }
+            if (counter.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], i);
+            i = child;
+        }
+        place(counter, i);
+    }
+
+    private void place(Counter<K> counter, int i) {
+        heap[i] = counter;
+        counter.index = i;
+    }
+
+    private static final class Counter<K> {
+        K key;
+        long count;
+        long error;
+        int index;
+
+        Counter(K key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
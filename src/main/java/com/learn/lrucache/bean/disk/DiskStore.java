@@ -0,0 +1,637 @@
+package com.learn.lrucache.bean.disk;
+
+import com.learn.lrucache.bean.io.Serializer;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 基于内存映射文件的日志结构存储，作为内存缓存之下的第二级（L2）缓存
+ * <p>
+ * 数据只追加写入当前的段文件（segment），每个段是一个固定大小、整体映射到内存的文件；
+ * 内存中只保存key到段内位置的索引，value留在磁盘上（由操作系统的页缓存决定是否驻留内存），
+ * 所以同样的堆内存可以缓存多得多的数据。
+ * <p>
+ * - 覆盖或删除只修改索引，旧记录变成垃圾，由压缩（compaction）回收：
+ * 后台线程挑出存活数据比例低于阈值的段，把其中仍然存活的记录追加到当前段后删除该段
+ * - 所有段的总大小超过maxBytes时，整段丢弃最老的段（FIFO），其中的数据视为被逐出
+ * - 记录格式：int keyLength | int valueLength | long expireAt（墙上时间，毫秒）| key | value
+ * <p>
+ * 这是缓存而不是持久化：打开时会删除目录中遗留的段文件，索引也不落盘，需要重启预热时使用快照（SnapshotWriter）。
+ * <p>
+ * 线程安全。所有操作在同一个锁内修改索引和段，读取时只在锁内复制value的字节，反序列化在锁外进行；
+ * 压缩按批处理，每批只短暂持有锁。
+ */
+public final class DiskStore<K, V> implements Closeable {
+    // 默认段大小
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    // 默认的压缩阈值：段中存活数据低于一半时压缩
+    public static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+    // 默认的后台压缩间隔（毫秒）
+    public static final long DEFAULT_COMPACTION_INTERVAL = 1000;
+    // 不会过期
+    public static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    private static final int RECORD_HEADER_SIZE = 16;
+    // 压缩时每次持有锁最多处理的记录数
+    private static final int COMPACTION_BATCH = 256;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long maxBytes;
+    private final double compactionThreshold;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final Map<K, Location> index = new HashMap<>();
+    // 从旧到新排列的所有段，最后一个是当前写入的段
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private final ScheduledFuture<?> compactionFuture;
+    private int nextSegmentId;
+    private boolean closed;
+
+    private long hitCount;
+    private long missCount;
+    private long writeCount;
+    private long evictionCount;
+    private long compactionCount;
+
+    private DiskStore(Builder<K, V> builder) throws IOException {
+        if (builder.segmentSize <= RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("segmentSize <= " + RECORD_HEADER_SIZE);
+        }
+        if (builder.maxBytes < builder.segmentSize) {
+            throw new IllegalArgumentException("maxBytes < segmentSize");
+        }
+        if (builder.compactionThreshold <= 0 || builder.compactionThreshold >= 1) {
+            throw new IllegalArgumentException("compactionThreshold must be in (0, 1)");
+        }
+        this.directory = builder.directory;
+        this.segmentSize = builder.segmentSize;
+        this.maxBytes = builder.maxBytes;
+        this.compactionThreshold = builder.compactionThreshold;
+        this.keySerializer = builder.keySerializer;
+        this.valueSerializer = builder.valueSerializer;
+        Files.createDirectories(directory);
+        deleteSegmentFiles();
+        this.compactionFuture = builder.compactionInterval > 0
+                ? Compactor.schedule(this, builder.compactionInterval) : null;
+    }
+
+    /**
+     * @param directory 段文件所在的目录，应该位于本地SSD上，并且只给这一个DiskStore使用
+     */
+    public static <K, V> Builder<K, V> newBuilder(@NonNull Path directory, @NonNull Serializer<K> keySerializer,
+                                                  @NonNull Serializer<V> valueSerializer) {
+        return new Builder<>(directory, keySerializer, valueSerializer);
+    }
+
+    /**
+     * 写入不会过期的数据
+     *
+     * @return 数据超过单个段的大小时不写入，返回false，见 {@link #put(Object, Object, long)}
+     */
+    public boolean put(@NonNull K key, @NonNull V value) {
+        return put(key, value, NO_EXPIRY);
+    }
+
+    /**
+     * 写入数据，已有的数据被覆盖
+     *
+     * @param expireAt 过期时间（墙上时间，毫秒），{@link #NO_EXPIRY} 表示不会过期
+     * @return 数据超过单个段的大小时不写入，同时删除key已有的数据（旧值不能再被读到），返回false
+     */
+    public boolean put(@NonNull K key, @NonNull V value, long expireAt) {
+        byte[] keyBytes = keySerializer.serialize(key);
+        byte[] valueBytes = valueSerializer.serialize(value);
+        int length = RECORD_HEADER_SIZE + keyBytes.length + valueBytes.length;
+        if (length > segmentSize) {
+            invalidate(key);
+            return false;
+        }
+        synchronized (this) {
+            ensureOpen();
+            Segment segment = segmentFor(length);
+            int offset = segment.append(key, keyBytes, valueBytes, expireAt);
+            link(key, new Location(segment, offset, length));
+            writeCount++;
+        }
+        return true;
+    }
+
+    /**
+     * 读取key对应的值，不存在或已过期时返回null
+     */
+    @Nullable
+    public V get(@NonNull K key) {
+        byte[] bytes;
+        synchronized (this) {
+            bytes = read(key, false);
+        }
+        return bytes == null ? null : valueSerializer.deserialize(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * 读取并删除key对应的值，用于把数据提升回上一级缓存
+     */
+    @Nullable
+    public V remove(@NonNull K key) {
+        byte[] bytes;
+        synchronized (this) {
+            bytes = read(key, true);
+        }
+        return bytes == null ? null : valueSerializer.deserialize(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * 删除key对应的数据，不读取value
+     *
+     * @return 是否存在
+     */
+    public synchronized boolean invalidate(@NonNull K key) {
+        Location location = index.remove(key);
+        if (location == null) {
+            return false;
+        }
+        location.segment.liveBytes -= location.length;
+        return true;
+    }
+
+    /**
+     * 删除所有数据和段文件
+     */
+    public synchronized void clear() {
+        index.clear();
+        while (!segments.isEmpty()) {
+            segments.pollFirst().delete();
+        }
+    }
+
+    /**
+     * 压缩一个存活数据比例最低、并且低于阈值的段（不包括当前写入的段）。开启后台压缩时由后台线程定期调用。
+     *
+     * @return 是否压缩了一个段
+     */
+    public boolean compact() {
+        Segment victim;
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            victim = null;
+            Segment active = segments.peekLast();
+            for (Segment segment : segments) {
+                if (segment != active && segment.liveRatio() < compactionThreshold
+                        && (victim == null || segment.liveRatio() < victim.liveRatio())) {
+                    victim = segment;
+                }
+            }
+            if (victim == null) {
+                return false;
+            }
+        }
+        int position = 0;
+        int record = 0;
+        while (true) {
+            synchronized (this) {
+                if (victim.buffer == null) {
+                    // 压缩过程中这个段已经因为容量不足被丢弃了
+                    return true;
+                }
+                for (int i = 0; i < COMPACTION_BATCH && position < victim.writeOffset && victim.buffer != null; i++) {
+                    position = relocate(victim, position, victim.key(record++));
+                }
+                if (victim.buffer == null || position >= victim.writeOffset) {
+                    segments.remove(victim);
+                    victim.delete();
+                    compactionCount++;
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * 索引中的数据条数
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * 所有段文件占用的字节数
+     */
+    public synchronized long diskBytes() {
+        return (long) segments.size() * segmentSize;
+    }
+
+    /**
+     * 存活数据占用的字节数
+     */
+    public synchronized long liveBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.liveBytes;
+        }
+        return bytes;
+    }
+
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    public synchronized long missCount() {
+        return missCount;
+    }
+
+    public synchronized long writeCount() {
+        return writeCount;
+    }
+
+    /**
+     * 因为总大小超过maxBytes、随最老的段一起丢弃的数据条数
+     */
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+
+    public synchronized long compactionCount() {
+        return compactionCount;
+    }
+
+    /**
+     * 停止后台压缩并删除所有段文件
+     */
+    @Override
+    public void close() {
+        if (compactionFuture != null) {
+            compactionFuture.cancel(false);
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            clear();
+            closed = true;
+        }
+    }
+
+    /**
+     * 在锁内读取value的字节
+     *
+     * @param remove 读取后是否删除
+     */
+    private byte[] read(K key, boolean remove) {
+        ensureOpen();
+        Location location = index.get(key);
+        if (location == null) {
+            missCount++;
+            return null;
+        }
+        ByteBuffer record = location.segment.slice(location.offset, location.length);
+        int keyLength = record.getInt();
+        int valueLength = record.getInt();
+        long expireAt = record.getLong();
+        boolean expired = expireAt != NO_EXPIRY && System.currentTimeMillis() >= expireAt;
+        if (remove || expired) {
+            index.remove(key);
+            location.segment.liveBytes -= location.length;
+        }
+        if (expired) {
+            missCount++;
+            return null;
+        }
+        byte[] bytes = new byte[valueLength];
+        record.position(RECORD_HEADER_SIZE + keyLength);
+        record.get(bytes);
+        hitCount++;
+        return bytes;
+    }
+
+    /**
+     * 压缩时处理victim中position处的记录：仍然存活的追加到当前段并更新索引
+     *
+     * @param key 这条记录的key，从段的key列表中取得，不需要反序列化
+     * @return 下一条记录的位置
+     */
+    private int relocate(Segment victim, int position, K key) {
+        ByteBuffer header = victim.slice(position, RECORD_HEADER_SIZE);
+        int keyLength = header.getInt();
+        int valueLength = header.getInt();
+        long expireAt = header.getLong();
+        int length = RECORD_HEADER_SIZE + keyLength + valueLength;
+        Location location = index.get(key);
+        if (location != null && location.segment == victim && location.offset == position) {
+            if (expireAt != NO_EXPIRY && System.currentTimeMillis() >= expireAt) {
+                index.remove(key);
+            } else {
+                ByteBuffer record = victim.slice(position, length);
+                Segment segment = segmentFor(length);
+                // 追加可能导致最老的段被丢弃，victim本身被丢弃时location已经从索引中删除
+                if (victim.buffer != null) {
+                    int offset = segment.append(key, record);
+                    link(key, new Location(segment, offset, length));
+                }
+            }
+            victim.liveBytes -= length;
+        }
+        return position + length;
+    }
+
+    /**
+     * 更新索引，被覆盖的旧记录计为垃圾
+     */
+    private void link(K key, Location location) {
+        Location old = index.put(key, location);
+        if (old != null) {
+            old.segment.liveBytes -= old.length;
+        }
+        location.segment.liveBytes += location.length;
+    }
+
+    /**
+     * 返回能写下length字节的当前段，写不下时新建一个段，并在总大小超过maxBytes时丢弃最老的段
+     */
+    private Segment segmentFor(int length) {
+        Segment active = segments.peekLast();
+        if (active != null && active.remaining() >= length) {
+            return active;
+        }
+        Segment segment;
+        try {
+            segment = new Segment(directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, nextSegmentId++,
+                    SEGMENT_SUFFIX)), segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segments.addLast(segment);
+        while ((long) segments.size() * segmentSize > maxBytes && segments.size() > 1) {
+            drop(segments.pollFirst());
+        }
+        return segment;
+    }
+
+    /**
+     * 丢弃整个段，其中仍然存活的数据从索引中删除。
+     * 只遍历段中记录的key列表，不读取也不反序列化段文件，持有锁的时间与记录数成正比
+     */
+    private void drop(Segment segment) {
+        for (int i = 0; i < segment.keys.size(); i++) {
+            K key = segment.key(i);
+            Location location = index.get(key);
+            // 同一个key在段中可能有多条记录，索引只指向最后一条，删除一次即可
+            if (location != null && location.segment == segment) {
+                index.remove(key);
+                evictionCount++;
+            }
+        }
+        segment.delete();
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("DiskStore is closed");
+        }
+    }
+
+    private void deleteSegmentFiles() throws IOException {
+        List<Path> stale = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                stale.add(path);
+            }
+        }
+        for (Path path : stale) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * 一个段文件，整体映射到内存，只由DiskStore在持有锁时访问
+     */
+    private static final class Segment {
+        private final Path path;
+        private final int capacity;
+        // 删除后为null
+        private MappedByteBuffer buffer;
+        private int writeOffset;
+        private long liveBytes;
+        // 按写入顺序排列的每条记录的key，丢弃和压缩时用它查索引，不需要反序列化段文件中的key
+        private final List<Object> keys = new ArrayList<>();
+
+        Segment(Path path, int capacity) throws IOException {
+            this.path = path;
+            this.capacity = capacity;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // 映射在channel关闭后仍然有效
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            }
+        }
+
+        int remaining() {
+            return capacity - writeOffset;
+        }
+
+        double liveRatio() {
+            return writeOffset == 0 ? 1.0 : (double) liveBytes / writeOffset;
+        }
+
+        int append(Object key, byte[] keyBytes, byte[] value, long expireAt) {
+            int offset = writeOffset;
+            ByteBuffer target = buffer.duplicate();
+            target.position(offset);
+            target.putInt(keyBytes.length).putInt(value.length).putLong(expireAt).put(keyBytes).put(value);
+            writeOffset = target.position();
+            keys.add(key);
+            return offset;
+        }
+
+        int append(Object key, ByteBuffer record) {
+            int offset = writeOffset;
+            ByteBuffer target = buffer.duplicate();
+            target.position(offset);
+            target.put(record);
+            writeOffset = target.position();
+            keys.add(key);
+            return offset;
+        }
+
+        @SuppressWarnings("unchecked")
+        <K> K key(int record) {
+            return (K) keys.get(record);
+        }
+
+        ByteBuffer slice(int offset, int length) {
+            ByteBuffer view = buffer.duplicate();
+            view.limit(offset + length).position(offset);
+            return view.slice();
+        }
+
+        /**
+         * 删除文件。Java 8无法主动解除映射，映射的内存在buffer被回收后释放；
+         * Linux上文件被删除后，已经映射的内存仍然可以安全访问
+         */
+        void delete() {
+            buffer = null;
+            keys.clear();
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+                // 删除失败不影响缓存的正确性，下次打开时会再次清理
+            }
+        }
+    }
+
+    private static final class Location {
+        private final Segment segment;
+        private final int offset;
+        private final int length;
+
+        Location(Segment segment, int offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * 所有DiskStore共享一个后台压缩线程。任务只弱引用DiskStore，DiskStore被回收后任务自动取消。
+     */
+    private static final class Compactor implements Runnable {
+        private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "DiskStore-Compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private final WeakReference<DiskStore<?, ?>> storeRef;
+        private volatile ScheduledFuture<?> future;
+
+        private Compactor(DiskStore<?, ?> store) {
+            this.storeRef = new WeakReference<>(store);
+        }
+
+        static ScheduledFuture<?> schedule(DiskStore<?, ?> store, long interval) {
+            Compactor compactor = new Compactor(store);
+            compactor.future = EXECUTOR.scheduleWithFixedDelay(compactor, interval, interval, TimeUnit.MILLISECONDS);
+            return compactor.future;
+        }
+
+        @Override
+        public void run() {
+            DiskStore<?, ?> store = storeRef.get();
+            if (store == null) {
+                ScheduledFuture<?> f = future;
+                if (f != null) {
+                    f.cancel(false);
+                }
+                return;
+            }
+            try {
+                // 一次把所有低于阈值的段都压缩掉
+                while (store.compact()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                }
+            } catch (RuntimeException ignored) {
+                // 异常不能抛出，否则后续的定时任务都不会再执行
+            }
+        }
+    }
+
+    public static final class Builder<K, V> {
+        private final Path directory;
+        private final Serializer<K> keySerializer;
+        private final Serializer<V> valueSerializer;
+        private int segmentSize = DEFAULT_SEGMENT_SIZE;
+        private long maxBytes = 16L * DEFAULT_SEGMENT_SIZE;
+        private double compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+        private long compactionInterval = DEFAULT_COMPACTION_INTERVAL;
+
+        private Builder(Path directory, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+            if (directory == null || keySerializer == null || valueSerializer == null) {
+                throw new NullPointerException("directory == null || keySerializer == null || valueSerializer == null");
+            }
+            this.directory = directory;
+            this.keySerializer = keySerializer;
+            this.valueSerializer = valueSerializer;
+        }
+
+        /**
+         * @param segmentSize 每个段文件的大小，也是单条数据的大小上限，默认64MB
+         */
+        public Builder<K, V> segmentSize(int segmentSize) {
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * @param maxBytes 所有段文件的总大小上限，超过时丢弃最老的段，默认1GB
+         */
+        public Builder<K, V> maxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * @param compactionThreshold 段中存活数据的比例低于该值时压缩，取值 (0, 1)，默认0.5
+         */
+        public Builder<K, V> compactionThreshold(double compactionThreshold) {
+            this.compactionThreshold = compactionThreshold;
+            return this;
+        }
+
+        /**
+         * @param compactionInterval 后台压缩的间隔（毫秒），小于等于0表示不开启后台压缩，需要手动调用compact
+         */
+        public Builder<K, V> compactionInterval(long compactionInterval) {
+            this.compactionInterval = compactionInterval;
+            return this;
+        }
+
+        /**
+         * 创建目录并删除其中遗留的段文件
+         */
+        public DiskStore<K, V> build() throws IOException {
+            return new DiskStore<>(this);
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "DiskStore{" +
+                "directory=" + directory +
+                ", size=" + index.size() +
+                ", segments=" + segments.size() +
+                ", hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", evictionCount=" + evictionCount +
+                ", compactionCount=" + compactionCount +
+                '}';
+    }
+}
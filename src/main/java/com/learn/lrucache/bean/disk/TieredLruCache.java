@@ -0,0 +1,147 @@
+package com.learn.lrucache.bean.disk;
+
+import com.learn.lrucache.bean.CacheLoader;
+import com.learn.lrucache.bean.LruCache;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 两级缓存：内存中的LruCache作为L1，{@link DiskStore} 作为L2
+ * <p>
+ * - 因为容量不足从L1逐出的数据降级写入L2，而不是直接丢弃
+ * - L1未命中时先从L2中取出（同时从L2删除）并提升回L1，L2也未命中才调用loader
+ * - put、remove会让L2中同一个key的旧数据失效，一个key同时只在一级中有效
+ * <p>
+ * 逐出（包括降级写入L2）和put、remove对L2的失效都在L1的锁内完成，同一个key在两级之间的变化有确定的先后顺序，
+ * 不会出现L1中是新值、L2中却残留旧值的情况；代价是降级写入L2（内存映射文件的一次拷贝）期间L1的读写需要等待。
+ * <p>
+ * 内存只需要容纳热数据，较冷的数据留在SSD上，命中L2只需要一次内存映射读取，远比回源便宜。
+ * 调用 {@link #evictAll()} 会把L1中的数据全部降级到L2，需要同时清空两级时使用 {@link #invalidateAll()}。
+ */
+public class TieredLruCache<K, V> extends LruCache<K, V> implements Closeable {
+    private final DiskStore<K, V> l2;
+    private final CacheLoader<K, V> loader;
+
+    /**
+     * @param maxSize L1的容量，see {@link LruCache#LruCache(long)}
+     * @param l2      L2存储，关闭缓存时一起关闭
+     */
+    public TieredLruCache(long maxSize, @NonNull DiskStore<K, V> l2) {
+        this(maxSize, l2, null);
+    }
+
+    /**
+     * @param loader 两级都未命中时加载数据，为null时返回null
+     */
+    public TieredLruCache(long maxSize, @NonNull DiskStore<K, V> l2, @Nullable CacheLoader<K, V> loader) {
+        super(maxSize);
+        if (l2 == null) {
+            throw new NullPointerException("l2 == null");
+        }
+        this.l2 = l2;
+        this.loader = loader;
+    }
+
+    @Override
+    public V put(@NonNull K key, @NonNull V value) {
+        synchronized (this) {
+            l2.invalidate(key);
+            return super.put(key, value);
+        }
+    }
+
+    @Override
+    public void putAll(@NonNull Map<? extends K, ? extends V> entries) {
+        synchronized (this) {
+            for (K key : entries.keySet()) {
+                l2.invalidate(key);
+            }
+            super.putAll(entries);
+        }
+    }
+
+    /**
+     * 同时删除L2中的数据
+     *
+     * @return L1中的旧值，只存在于L2中的数据不会为了返回而读取，返回null
+     */
+    @Override
+    public V remove(@NonNull K key) {
+        synchronized (this) {
+            l2.invalidate(key);
+            return super.remove(key);
+        }
+    }
+
+    @Override
+    public Map<K, V> removeAll(@NonNull Collection<? extends K> keys) {
+        synchronized (this) {
+            for (K key : keys) {
+                l2.invalidate(key);
+            }
+            return super.removeAll(keys);
+        }
+    }
+
+    /**
+     * 同时清空L1和L2，L1中的数据不会降级
+     */
+    public void invalidateAll() {
+        l2.clear();
+        evictAll();
+        // evictAll期间降级到L2的数据
+        l2.clear();
+    }
+
+    /**
+     * L2存储，用于查看统计数据或手动压缩
+     */
+    @NonNull
+    public DiskStore<K, V> diskStore() {
+        return l2;
+    }
+
+    /**
+     * 关闭L2并删除其段文件，L1中的数据不受影响
+     */
+    @Override
+    public void close() {
+        l2.close();
+    }
+
+    /**
+     * 在L1的锁内逐出并降级：entryRemoved本来在释放锁之后才回调，如果降级晚于同一个key后续的put，
+     * L2中就会留下比L1更旧的值，所以整个逐出过程都持有L1的锁（可重入）
+     */
+    @Override
+    public void trimToSize(long maxSize) {
+        synchronized (this) {
+            super.trimToSize(maxSize);
+        }
+    }
+
+    @Override
+    protected void entryRemoved(boolean evicted, @NonNull K key, @NonNull V oldValue, @Nullable V newValue) {
+        if (evicted) {
+            // 降级写入L2，数据过大无法写入时直接丢弃
+            l2.put(key, oldValue);
+        }
+    }
+
+    @Nullable
+    @Override
+    protected V create(@NonNull K key) {
+        // 从L2取出时同时删除，提升回L1后被再次逐出会重新写入L2
+        V value = l2.remove(key);
+        if (value == null && loader != null) {
+            value = loader.load(key);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,53 @@
+package com.learn.lrucache.bean.io;
+
+import org.springframework.lang.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 把缓存的key/value与字节互相转换，用于堆外存储、持久化等场景
+ */
+public interface Serializer<T> {
+
+    /**
+     * 序列化为字节
+     */
+    @NonNull
+    byte[] serialize(@NonNull T value);
+
+    /**
+     * 从buffer的position到limit之间的字节反序列化
+     */
+    @NonNull
+    T deserialize(@NonNull ByteBuffer buffer);
+
+    /**
+     * UTF-8编码的字符串
+     */
+    static Serializer<String> string() {
+        return StringSerializer.INSTANCE;
+    }
+
+    enum StringSerializer implements Serializer<String> {
+        INSTANCE;
+
+        @Override
+        public byte[] serialize(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String deserialize(ByteBuffer buffer) {
+            if (buffer.hasArray()) {
+                return new String(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                        buffer.remaining(), StandardCharsets.UTF_8);
+            }
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.learn.lrucache.bean.io;
+
+import org.springframework.lang.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 通过内存映射读取 {@link SnapshotWriter} 写出的快照文件
+ * <p>
+ * 文件按1GB的窗口依次映射，超过2GB的快照也可以读取；读取是顺序的，由操作系统预读，不需要把文件拷贝到堆中。
+ * 打开时先完整校验一遍文件头、条数和CRC32，文件损坏时抛出IOException，不会把半截数据放入缓存。
+ * <p>
+ * 剩余存活时间会减去快照写出到现在经过的时间（按墙上时间计算），已经过期的数据直接跳过。
+ * <p>
+ * 非线程安全。
+ */
+public final class SnapshotReader<K, V> implements Closeable {
+    private static final long WINDOW_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final long createdAt;
+    private final long count;
+    // 当前映射的窗口
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    private SnapshotReader(Path path, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        try {
+            if (channel.size() < SnapshotWriter.HEADER_SIZE) {
+                throw new IOException("Not a cache snapshot: " + path);
+            }
+            ByteBuffer header = region(0, SnapshotWriter.HEADER_SIZE);
+            if (header.getInt() != SnapshotWriter.MAGIC) {
+                throw new IOException("Not a cache snapshot: " + path);
+            }
+            int version = header.getInt();
+            if (version != SnapshotWriter.VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + path);
+            }
+            this.createdAt = header.getLong();
+            this.count = verify(path);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 打开并校验快照文件
+     */
+    public static <K, V> SnapshotReader<K, V> open(@NonNull Path path, @NonNull Serializer<K> keySerializer,
+                                                   @NonNull Serializer<V> valueSerializer) throws IOException {
+        return new SnapshotReader<>(path, keySerializer, valueSerializer);
+    }
+
+    /**
+     * 快照写出的时间（墙上时间，毫秒）
+     */
+    public long createdAt() {
+        return createdAt;
+    }
+
+    /**
+     * 快照中的数据条数，包括读取时已经过期的
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * 按写入顺序（从旧到新）依次回调没有过期的数据
+     *
+     * @return 回调的数据条数
+     */
+    public long forEach(@NonNull EntryConsumer<K, V> consumer) throws IOException {
+        long elapsed = Math.max(0L, System.currentTimeMillis() - createdAt);
+        long position = SnapshotWriter.HEADER_SIZE;
+        long delivered = 0;
+        for (long i = 0; i < count; i++) {
+            ByteBuffer recordHeader = region(position, SnapshotWriter.RECORD_HEADER_SIZE);
+            int keyLength = recordHeader.getInt();
+            int valueLength = recordHeader.getInt();
+            long remaining = recordHeader.getLong();
+            position += SnapshotWriter.RECORD_HEADER_SIZE;
+            if (remaining != SnapshotWriter.NO_EXPIRY) {
+                remaining -= elapsed;
+                if (remaining <= 0) {
+                    position += keyLength + (long) valueLength;
+                    continue;
+                }
+            }
+            K key = keySerializer.deserialize(region(position, keyLength));
+            position += keyLength;
+            V value = valueSerializer.deserialize(region(position, valueLength));
+            position += valueLength;
+            consumer.accept(key, value, remaining);
+            delivered++;
+        }
+        return delivered;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    /**
+     * 遍历一遍所有record，检查结尾的条数和CRC32
+     *
+     * @return 数据条数
+     */
+    private long verify(Path path) throws IOException {
+        long size = channel.size();
+        long position = SnapshotWriter.HEADER_SIZE;
+        long records = 0;
+        CRC32 crc = new CRC32();
+        for (; ; ) {
+            if (position + 4 > size) {
+                throw new IOException("Truncated snapshot: " + path);
+            }
+            int keyLength = region(position, 4).getInt();
+            if (keyLength == SnapshotWriter.END_OF_RECORDS) {
+                break;
+            }
+            if (keyLength < 0 || position + SnapshotWriter.RECORD_HEADER_SIZE > size) {
+                throw new IOException("Corrupted snapshot: " + path);
+            }
+            int valueLength = region(position + 4, 4).getInt();
+            long length = SnapshotWriter.RECORD_HEADER_SIZE + (long) keyLength + valueLength;
+            if (valueLength < 0 || position + length > size) {
+                throw new IOException("Corrupted snapshot: " + path);
+            }
+            updateCrc(crc, position, length);
+            position += length;
+            records++;
+        }
+        if (position + 4 + 16 != size) {
+            throw new IOException("Corrupted snapshot: " + path);
+        }
+        ByteBuffer trailer = region(position + 4, 16);
+        if (trailer.getLong() != records || trailer.getLong() != crc.getValue()) {
+            throw new IOException("Corrupted snapshot: " + path);
+        }
+        return records;
+    }
+
+    private void updateCrc(CRC32 crc, long position, long length) throws IOException {
+        while (length > 0) {
+            int chunk = (int) Math.min(length, WINDOW_SIZE / 2);
+            crc.update(region(position, chunk));
+            position += chunk;
+            length -= chunk;
+        }
+    }
+
+    /**
+     * 返回文件中 [position, position + length) 的只读视图，不在当前窗口内时重新映射
+     */
+    private ByteBuffer region(long position, int length) throws IOException {
+        if (window == null || position < windowStart || position + length > windowStart + window.capacity()) {
+            long size = Math.min(channel.size() - position, Math.max(WINDOW_SIZE, length));
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            windowStart = position;
+        }
+        ByteBuffer view = window.duplicate();
+        int offset = (int) (position - windowStart);
+        view.limit(offset + length).position(offset);
+        return view.slice();
+    }
+
+    /**
+     * 快照中的一条数据
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<K, V> {
+
+        /**
+         * @param remainingMillis 剩余的存活时间（毫秒），{@link SnapshotWriter#NO_EXPIRY} 表示不会过期
+         */
+        void accept(K key, V value, long remainingMillis);
+    }
+}
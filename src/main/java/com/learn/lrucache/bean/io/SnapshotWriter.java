@@ -0,0 +1,157 @@
+package com.learn.lrucache.bean.io;
+
+import org.springframework.lang.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 把缓存数据写成紧凑的二进制快照文件，配合 {@link SnapshotReader} 在重启后预热缓存
+ * <p>
+ * 文件格式（大端序）：
+ * <pre>
+ * header : int magic | int version | long createdAt（写入时的墙上时间，毫秒）
+ * record : int keyLength | int valueLength | long remainingMillis | key | value   （按从旧到新的顺序，重复）
+ * trailer: int -1 | long count | long crc32（所有record字节的CRC32）
+ * </pre>
+ * 数据先写到同目录下的 .tmp 文件，{@link #commit()} 时刷盘并原子地重命名为目标文件，
+ * 进程在写入过程中退出也不会留下半个快照。record先攒在一个64KB的直接内存缓冲区中，满了再一次写入FileChannel。
+ * <p>
+ * 非线程安全。
+ */
+public final class SnapshotWriter<K, V> implements Closeable {
+    // 不会过期的数据的剩余时间
+    public static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    static final int MAGIC = 0x4C525543;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_HEADER_SIZE = 16;
+    static final int END_OF_RECORDS = -1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+    private long count;
+    private boolean closed;
+
+    private SnapshotWriter(Path target, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+        this.target = target;
+        this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis());
+    }
+
+    /**
+     * 创建快照文件，提交前目标文件保持不变
+     */
+    public static <K, V> SnapshotWriter<K, V> create(@NonNull Path target, @NonNull Serializer<K> keySerializer,
+                                                     @NonNull Serializer<V> valueSerializer) throws IOException {
+        return new SnapshotWriter<>(target, keySerializer, valueSerializer);
+    }
+
+    /**
+     * 追加一条数据，按从旧到新的顺序调用，加载时按同样的顺序放入缓存即可还原LRU顺序
+     *
+     * @param remainingMillis 剩余的存活时间（毫秒），{@link #NO_EXPIRY} 表示不会过期
+     */
+    public void write(@NonNull K key, @NonNull V value, long remainingMillis) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("writer is closed");
+        }
+        byte[] keyBytes = keySerializer.serialize(key);
+        byte[] valueBytes = valueSerializer.serialize(value);
+        int length = RECORD_HEADER_SIZE + keyBytes.length + valueBytes.length;
+        if (length > buffer.remaining()) {
+            flush();
+        }
+        if (length > buffer.capacity()) {
+            // 超过缓冲区大小的数据直接写入
+            ByteBuffer record = ByteBuffer.allocate(length);
+            record.putInt(keyBytes.length).putInt(valueBytes.length).putLong(remainingMillis)
+                    .put(keyBytes).put(valueBytes).flip();
+            crc.update(record.duplicate());
+            writeFully(record);
+        } else {
+            buffer.putInt(keyBytes.length).putInt(valueBytes.length).putLong(remainingMillis)
+                    .put(keyBytes).put(valueBytes);
+        }
+        count++;
+    }
+
+    /**
+     * 写入结尾、刷盘并把临时文件原子地替换为目标文件
+     *
+     * @return 写入的数据条数
+     */
+    public long commit() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("writer is closed");
+        }
+        flush();
+        buffer.putInt(END_OF_RECORDS).putLong(count).putLong(crc.getValue());
+        buffer.flip();
+        writeFully(buffer);
+        channel.force(true);
+        channel.close();
+        closed = true;
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return count;
+    }
+
+    /**
+     * 没有提交时删除临时文件
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            channel.close();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        ByteBuffer records = buffer.duplicate();
+        if (channel.position() == 0) {
+            // 第一次写入时缓冲区开头是文件头，不计入CRC
+            records.position(HEADER_SIZE);
+        }
+        crc.update(records);
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            channel.write(src);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.learn.lrucache.bean.offheap;
+
+import com.learn.lrucache.bean.Cache;
+import com.learn.lrucache.bean.LruCache;
+import com.learn.lrucache.bean.io.Serializer;
+import com.learn.lrucache.bean.offheap.SlabAllocator.Slot;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 值存放在堆外内存中的LruCache
+ * <p>
+ * 几个GB的序列化广告数据如果都以对象的形式放在LinkedHashMap中，老年代会非常大，GC停顿随缓存大小增长。
+ * 这里把value序列化后写入 {@link SlabAllocator} 分配的直接内存中，堆上只保留key和一个很小的 {@link Slot}，
+ * GC需要扫描的对象数量与value的大小无关。
+ * <p>
+ * 容量按实际占用的块大小计算（以 {@link SlabAllocator#MIN_CHUNK_SIZE} 字节为单位），逐出顺序、{@link #entryRemoved}、{@link #create}
+ * 的语义与 {@link LruCache} 相同。被移出的值会先反序列化交给entryRemoved，然后释放其内存块。
+ * <p>
+ * 默认的分配器最多申请maxBytes（向上取整到slab）的直接内存。块的大小向上取整到2的幂，各个大小类的slab
+ * 也可能没有用满，所以按块统计的容量没满时分配器也可能已经到达上限，这时从最久未使用的数据开始逐出，
+ * 直到有slab整个空出来可以复用。
+ * <p>
+ * 只有子类覆盖了entryRemoved时，被替换、删除和逐出的值才会反序列化回堆上；不需要旧值的写入和删除
+ * 使用 {@link #set} 和 {@link #invalidate}，避免 {@link #put} 和 {@link #remove} 为了返回值而产生的复制和分配。
+ */
+public class OffHeapLruCache<K, V> implements Cache<K, V> {
+    private final SlabAllocator allocator;
+    private final Serializer<V> serializer;
+    private final SlotCache slots;
+    // 子类是否覆盖了entryRemoved，没有覆盖时移出的值不需要反序列化
+    private final boolean notifyRemoval;
+
+    /**
+     * @param maxBytes   值占用的最大直接内存字节数
+     * @param serializer value的序列化方式
+     */
+    public OffHeapLruCache(long maxBytes, @NonNull Serializer<V> serializer) {
+        this(maxBytes, serializer, new SlabAllocator(SlabAllocator.DEFAULT_SLAB_SIZE, maxBytes));
+    }
+
+    public OffHeapLruCache(long maxBytes, @NonNull Serializer<V> serializer, @NonNull SlabAllocator allocator) {
+        if (maxBytes < SlabAllocator.MIN_CHUNK_SIZE) {
+            throw new IllegalArgumentException("maxBytes < " + SlabAllocator.MIN_CHUNK_SIZE);
+        }
+        if (serializer == null || allocator == null) {
+            throw new NullPointerException("serializer == null || allocator == null");
+        }
+        this.serializer = serializer;
+        this.allocator = allocator;
+        this.slots = new SlotCache(maxBytes >>> SlabAllocator.MIN_CHUNK_SHIFT);
+        this.notifyRemoval = overridesEntryRemoved(getClass());
+    }
+
+    @Nullable
+    @Override
+    public V get(@NonNull K key) {
+        Slot slot = slots.get(key);
+        if (slot != null) {
+            V value = decode(slot);
+            if (value != null) {
+                return value;
+            }
+            // 读取前刚好被逐出，按未命中处理
+        }
+
+        V createdValue = create(key);
+        if (createdValue != null) {
+            set(key, createdValue);
+        }
+        return createdValue;
+    }
+
+    @Nullable
+    @Override
+    public V put(@NonNull K key, @NonNull V value) {
+        return put(key, value, true);
+    }
+
+    /**
+     * 与 {@link #put} 相同，但不返回旧值：子类没有覆盖entryRemoved时旧值不会被反序列化
+     */
+    public void set(@NonNull K key, @NonNull V value) {
+        put(key, value, false);
+    }
+
+    @Nullable
+    @Override
+    public V remove(@NonNull K key) {
+        return remove(key, true);
+    }
+
+    /**
+     * 与 {@link #remove} 相同，但不返回旧值：子类没有覆盖entryRemoved时旧值不会被反序列化
+     */
+    public void invalidate(@NonNull K key) {
+        remove(key, false);
+    }
+
+    private V put(K key, V value, boolean returnOld) {
+        if (key == null || value == null) {
+            throw new NullPointerException("key == null || value == null");
+        }
+        byte[] bytes = serializer.serialize(value);
+        Slot slot = allocate(bytes.length);
+        if (slot == null) {
+            // 缓存已经逐空，直接内存仍被共享同一个分配器的其他缓存占满，放弃写入，同时删除旧值避免读到过期数据
+            return remove(key, returnOld);
+        }
+        allocator.write(slot, bytes);
+
+        Slot previous = slots.put(key, slot);
+        if (previous == null) {
+            return null;
+        }
+        V oldValue = returnOld || notifyRemoval ? decode(previous) : null;
+        allocator.free(previous);
+        if (oldValue != null && notifyRemoval) {
+            entryRemoved(false, key, oldValue, value);
+        }
+        return oldValue;
+    }
+
+    private V remove(K key, boolean returnOld) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+        Slot previous = slots.remove(key);
+        if (previous == null) {
+            return null;
+        }
+        V oldValue = returnOld || notifyRemoval ? decode(previous) : null;
+        allocator.free(previous);
+        if (oldValue != null && notifyRemoval) {
+            entryRemoved(false, key, oldValue, null);
+        }
+        return oldValue;
+    }
+
+    /**
+     * See {@link LruCache#entryRemoved}. 调用时值所在的内存块还没有释放。
+     */
+    protected void entryRemoved(boolean evicted, @NonNull K key, @NonNull V oldValue, @Nullable V newValue) {
+    }
+
+    /**
+     * See {@link LruCache#create}.
+     */
+    @Nullable
+    protected V create(@NonNull K key) {
+        return null;
+    }
+
+    /**
+     * Clear the cache, calling {@link #entryRemoved} on each removed entry.
+     */
+    public final void evictAll() {
+        slots.evictAll();
+    }
+
+    /**
+     * 缓存的值占用的字节数（按块大小计算）
+     */
+    public final long byteSize() {
+        return slots.weightedSize() << SlabAllocator.MIN_CHUNK_SHIFT;
+    }
+
+    /**
+     * 值允许占用的最大字节数
+     */
+    public final long maxByteSize() {
+        return slots.maxWeight() << SlabAllocator.MIN_CHUNK_SHIFT;
+    }
+
+    /**
+     * 已向系统申请的直接内存字节数
+     */
+    public final long reservedBytes() {
+        return allocator.reservedBytes();
+    }
+
+    public final int hitCount() {
+        return slots.hitCount();
+    }
+
+    public final int missCount() {
+        return slots.missCount();
+    }
+
+    public final int evictionCount() {
+        return slots.evictionCount();
+    }
+
+    /**
+     * 分配器到达上限时逐出最久未使用的数据后重试，缓存已经逐空仍然分配不到时返回null
+     */
+    private Slot allocate(int length) {
+        for (; ; ) {
+            Slot slot = allocator.allocate(length);
+            if (slot != null) {
+                return slot;
+            }
+            long size = slots.weightedSize();
+            if (size == 0) {
+                return null;
+            }
+            slots.trimToSize(size - 1);
+        }
+    }
+
+    /**
+     * type及其到OffHeapLruCache之间的父类是否声明了entryRemoved（泛型子类会生成参数为Object的桥接方法）
+     */
+    private static boolean overridesEntryRemoved(Class<?> type) {
+        for (Class<?> c = type; c != OffHeapLruCache.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("entryRemoved", boolean.class, Object.class, Object.class, Object.class);
+                return true;
+            } catch (NoSuchMethodException ignored) {
+                // 继续检查父类
+            }
+        }
+        return false;
+    }
+
+    private V decode(Slot slot) {
+        byte[] bytes = allocator.read(slot);
+        return bytes == null ? null : serializer.deserialize(ByteBuffer.wrap(bytes));
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapLruCache{" +
+                "byteSize=" + byteSize() +
+                ", maxByteSize=" + maxByteSize() +
+                ", reservedBytes=" + reservedBytes() +
+                '}';
+    }
+
+    /**
+     * 堆上只保存key到Slot的映射，容量按块大小计算。
+     * 替换和删除在OffHeapLruCache中处理，这里只负责逐出时的回调和释放。
+     */
+    private final class SlotCache extends LruCache<K, Slot> {
+
+        SlotCache(long maxUnits) {
+            super(maxUnits);
+        }
+
+        @Override
+        protected int sizeOf(@NonNull K key, @NonNull Slot slot) {
+            return slot.capacity() >>> SlabAllocator.MIN_CHUNK_SHIFT;
+        }
+
+        @Override
+        protected void entryRemoved(boolean evicted, @NonNull K key, @NonNull Slot oldSlot, @Nullable Slot newSlot) {
+            if (!evicted) {
+                return;
+            }
+            V oldValue = notifyRemoval ? decode(oldSlot) : null;
+            allocator.free(oldSlot);
+            if (oldValue != null) {
+                OffHeapLruCache.this.entryRemoved(true, key, oldValue, null);
+            }
+        }
+    }
+}
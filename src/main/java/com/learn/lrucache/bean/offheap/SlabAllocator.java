@@ -0,0 +1,299 @@
+package com.learn.lrucache.bean.offheap;
+
+import org.springframework.lang.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 基于直接内存的slab分配器
+ * <p>
+ * 参考memcached的slab设计：按2的幂划分大小类（最小64字节，最大为一个slab的大小），
+ * 每个大小类从若干个固定大小的直接内存 {@link ByteBuffer}（slab）中切出等长的块，
+ * 释放的块放回所属slab的空闲栈中复用。分配和释放都是O(1)，也不会产生堆上的小对象。
+ * <p>
+ * 已申请的直接内存不超过maxBytes（向上取整到slab）。slab中的块全部释放后，slab会放回公共的空闲池，
+ * 任何大小类都可以重新使用它，避免值的大小分布变化后内存都被旧的大小类占住；
+ * 没有可用的块、空闲池为空并且已经达到maxBytes时 {@link #allocate} 返回null，由调用方逐出数据后重试。
+ */
+public final class SlabAllocator {
+    // 最小块大小（字节），同时也是容量统计的单位
+    public static final int MIN_CHUNK_SHIFT = 6;
+    public static final int MIN_CHUNK_SIZE = 1 << MIN_CHUNK_SHIFT;
+    // 默认slab大小，也是单个值允许的最大字节数
+    public static final int DEFAULT_SLAB_SIZE = 1 << 20;
+
+    private final int slabSize;
+    private final long maxBytes;
+    private final SizeClass[] sizeClasses;
+    // 块已经全部释放、可以分给任意大小类的slab
+    private final List<Slab> emptySlabs = new ArrayList<>();
+    // 已申请的直接内存字节数
+    private long reservedBytes;
+
+    public SlabAllocator() {
+        this(DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * @param slabSize 每个slab的字节数，必须是2的幂且不小于 {@link #MIN_CHUNK_SIZE}
+     */
+    public SlabAllocator(int slabSize) {
+        this(slabSize, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param slabSize 每个slab的字节数，必须是2的幂且不小于 {@link #MIN_CHUNK_SIZE}
+     * @param maxBytes 最多申请的直接内存字节数，不足一个slab时按一个slab计算
+     */
+    public SlabAllocator(int slabSize, long maxBytes) {
+        if (slabSize < MIN_CHUNK_SIZE || Integer.bitCount(slabSize) != 1) {
+            throw new IllegalArgumentException("slabSize must be a power of two >= " + MIN_CHUNK_SIZE);
+        }
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes <= 0");
+        }
+        this.slabSize = slabSize;
+        this.maxBytes = Math.max(maxBytes, slabSize);
+        int classes = Integer.numberOfTrailingZeros(slabSize) - MIN_CHUNK_SHIFT + 1;
+        this.sizeClasses = new SizeClass[classes];
+        for (int i = 0; i < classes; i++) {
+            sizeClasses[i] = new SizeClass(MIN_CHUNK_SIZE << i);
+        }
+    }
+
+    /**
+     * 分配一个至少能容纳length字节的块
+     *
+     * @return 已经达到maxBytes并且没有可以复用的slab时返回null
+     */
+    @Nullable
+    public synchronized Slot allocate(int length) {
+        if (length < 0 || length > slabSize) {
+            throw new IllegalArgumentException("length must be in [0, " + slabSize + "]: " + length);
+        }
+        SizeClass sizeClass = sizeClasses[sizeClassOf(length)];
+        Slab slab = sizeClass.partial;
+        if (slab == null) {
+            if (!emptySlabs.isEmpty()) {
+                slab = emptySlabs.remove(emptySlabs.size() - 1);
+            } else if (reservedBytes + slabSize <= maxBytes) {
+                slab = new Slab(ByteBuffer.allocateDirect(slabSize));
+                reservedBytes += slabSize;
+            } else {
+                return null;
+            }
+            slab.assign(sizeClass, slabSize / sizeClass.chunkSize);
+            sizeClass.link(slab);
+        }
+        int chunk = slab.take();
+        if (slab.isFull()) {
+            sizeClass.unlink(slab);
+        }
+        return new Slot(slab, chunk * sizeClass.chunkSize, sizeClass.chunkSize, length);
+    }
+
+    /**
+     * 释放块，释放后块可能马上被重新分配
+     */
+    public void free(Slot slot) {
+        // 与read使用同一把锁：正在读取的块要等读取完成后才能释放，释放后的块不会再被读取
+        synchronized (slot) {
+            if (slot.freed) {
+                throw new IllegalStateException("slot already freed");
+            }
+            slot.freed = true;
+        }
+        synchronized (this) {
+            Slab slab = slot.slab;
+            SizeClass sizeClass = slab.owner;
+            boolean wasFull = slab.isFull();
+            slab.give(slot.offset / sizeClass.chunkSize);
+            if (slab.isEmpty()) {
+                // 整个slab都空闲了，放回公共空闲池，之后可以分给其他大小类
+                if (!wasFull) {
+                    sizeClass.unlink(slab);
+                }
+                slab.owner = null;
+                emptySlabs.add(slab);
+            } else if (wasFull) {
+                sizeClass.link(slab);
+            }
+        }
+    }
+
+    /**
+     * 把bytes写入块中，调用方需要保证在块释放前调用
+     */
+    public void write(Slot slot, byte[] bytes) {
+        if (bytes.length > slot.capacity) {
+            throw new IllegalArgumentException("bytes.length > capacity");
+        }
+        ByteBuffer buffer = locate(slot);
+        buffer.put(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 把块中的数据复制出来，块已经被释放时返回null
+     */
+    public byte[] read(Slot slot) {
+        synchronized (slot) {
+            if (slot.freed) {
+                return null;
+            }
+            byte[] bytes = new byte[slot.length];
+            locate(slot).get(bytes);
+            return bytes;
+        }
+    }
+
+    /**
+     * 已申请的直接内存字节数
+     */
+    public synchronized long reservedBytes() {
+        return reservedBytes;
+    }
+
+    /**
+     * 最多申请的直接内存字节数
+     */
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    private static ByteBuffer locate(Slot slot) {
+        // 每次使用独立的position/limit，避免并发读写互相干扰
+        ByteBuffer buffer = slot.slab.buffer.duplicate();
+        buffer.limit(slot.offset + slot.length);
+        buffer.position(slot.offset);
+        return buffer;
+    }
+
+    private static int sizeClassOf(int length) {
+        if (length <= MIN_CHUNK_SIZE) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(length - 1) - MIN_CHUNK_SHIFT;
+    }
+
+    private static final class SizeClass {
+        private final int chunkSize;
+        // 还有空闲块的slab组成的双向链表，满了的slab和空闲池中的slab不在链表中
+        private Slab partial;
+
+        SizeClass(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        void link(Slab slab) {
+            slab.prev = null;
+            slab.next = partial;
+            if (partial != null) {
+                partial.prev = slab;
+            }
+            partial = slab;
+        }
+
+        void unlink(Slab slab) {
+            if (slab.prev != null) {
+                slab.prev.next = slab.next;
+            } else {
+                partial = slab.next;
+            }
+            if (slab.next != null) {
+                slab.next.prev = slab.prev;
+            }
+            slab.prev = null;
+            slab.next = null;
+        }
+    }
+
+    /**
+     * 一块直接内存，同一时间只属于一个大小类，由SlabAllocator的锁保护
+     */
+    private static final class Slab {
+        private final ByteBuffer buffer;
+        private SizeClass owner;
+        private Slab prev;
+        private Slab next;
+        // 当前大小类下的块数
+        private int chunks;
+        // 已经切出过的块数
+        private int carved;
+        // 已分配出去的块数
+        private int used;
+        // 释放过的块编号组成的栈
+        private int[] free = new int[16];
+        private int freeCount;
+
+        Slab(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        void assign(SizeClass owner, int chunks) {
+            this.owner = owner;
+            this.chunks = chunks;
+            this.carved = 0;
+            this.used = 0;
+            this.freeCount = 0;
+        }
+
+        int take() {
+            used++;
+            return freeCount == 0 ? carved++ : free[--freeCount];
+        }
+
+        void give(int chunk) {
+            if (freeCount == free.length) {
+                free = Arrays.copyOf(free, free.length << 1);
+            }
+            free[freeCount++] = chunk;
+            used--;
+        }
+
+        boolean isFull() {
+            return used == chunks;
+        }
+
+        boolean isEmpty() {
+            return used == 0;
+        }
+    }
+
+    /**
+     * 分配出的一块内存。每次分配都是新的Slot对象，块被复用时旧的Slot保持freed状态。
+     */
+    public static final class Slot {
+        private final Slab slab;
+        private final int offset;
+        private final int capacity;
+        private final int length;
+        // 由Slot自身的监视器保护
+        private boolean freed;
+
+        private Slot(Slab slab, int offset, int capacity, int length) {
+            this.slab = slab;
+            this.offset = offset;
+            this.capacity = capacity;
+            this.length = length;
+        }
+
+        /**
+         * 块的大小（字节）
+         */
+        public int capacity() {
+            return capacity;
+        }
+
+        /**
+         * 写入的数据长度（字节）
+         */
+        public int length() {
+            return length;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.learn.lrucache.bean.policy;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description ARC（Adaptive Replacement Cache，Megiddo & Modha, 2003）淘汰策略
+ * <p>
+ * - T1：只被访问过一次的常驻数据，LRU。
+ * - T2：被访问过至少两次的常驻数据，LRU。
+ * - B1 / B2：分别从T1 / T2逐出的幽灵记录，只保存key。
+ * <p>
+ * 目标值p表示T1应占的容量：B1中的key再次写入说明T1太小，p增大；B2中的key再次写入说明T2太小，p减小。
+ * 逐出时T1超过p就从T1逐出，否则从T2逐出，从而在"最近"和"频繁"之间自适应，不需要调参。
+ */
+public class ArcPolicy<K> implements EvictionPolicy<K> {
+    private static final int T1 = 0;
+    private static final int T2 = 1;
+    private static final int B1 = 2;
+    private static final int B2 = 3;
+
+    // 包含常驻数据和B1、B2中的幽灵记录
+    private final Map<K, Node<K>> data = new HashMap<>();
+    private final NodeList<K> t1 = new NodeList<>();
+    private final NodeList<K> t2 = new NodeList<>();
+    private final NodeList<K> b1 = new NodeList<>();
+    private final NodeList<K> b2 = new NodeList<>();
+    private final int maximumSize;
+    // T1的目标大小
+    private int p;
+    // 最近一次写入是否命中了B2，ARC在 |T1| == p 时据此决定从哪一侧逐出
+    private boolean hitB2;
+
+    /**
+     * @param maximumSize 缓存预计可容纳的最大条目数
+     */
+    public ArcPolicy(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize <= 0");
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    @Override
+    public void recordInsert(K key) {
+        Node<K> node = data.get(key);
+        hitB2 = false;
+        if (node != null && node.queue == B1) {
+            p = Math.min(maximumSize, p + Math.max(b2.size() / b1.size(), 1));
+            b1.remove(node);
+            node.queue = T2;
+            t2.addLast(node);
+        } else if (node != null && node.queue == B2) {
+            p = Math.max(0, p - Math.max(b1.size() / b2.size(), 1));
+            hitB2 = true;
+            b2.remove(node);
+            node.queue = T2;
+            t2.addLast(node);
+        } else {
+            node = new Node<>(key, T1);
+            data.put(key, node);
+            t1.addLast(node);
+        }
+        trimGhosts();
+    }
+
+    @Override
+    public void recordAccess(K key) {
+        Node<K> node = data.get(key);
+        if (node == null) {
+            return;
+        }
+        if (node.queue == T1) {
+            t1.remove(node);
+            node.queue = T2;
+            t2.addLast(node);
+        } else if (node.queue == T2) {
+            t2.moveToLast(node);
+        }
+    }
+
+    @Override
+    public void recordRemoval(K key, boolean evicted) {
+        Node<K> node = data.get(key);
+        if (node == null || node.queue == B1 || node.queue == B2) {
+            return;
+        }
+        NodeList<K> list = node.queue == T1 ? t1 : t2;
+        list.remove(node);
+        if (evicted) {
+            // 被逐出的key转入对应的幽灵队列
+            node.queue = list == t1 ? B1 : B2;
+            (list == t1 ? b1 : b2).addLast(node);
+            trimGhosts();
+        } else {
+            data.remove(key);
+        }
+    }
+
+    @Override
+    public K victim() {
+        Node<K> victim;
+        if (!t1.isEmpty() && (t1.size() > p || (hitB2 && t1.size() == p) || t2.isEmpty())) {
+            victim = t1.first();
+        } else {
+            victim = t2.first();
+        }
+        return victim == null ? null : victim.key;
+    }
+
+    /**
+     * 限制幽灵记录的数量：|T1| + |B1| <= c，|T1| + |T2| + |B1| + |B2| <= 2c
+     */
+    private void trimGhosts() {
+        while (!b1.isEmpty() && t1.size() + b1.size() > maximumSize) {
+            data.remove(b1.removeFirst().key);
+        }
+        while (!b2.isEmpty() && t1.size() + t2.size() + b1.size() + b2.size() > 2 * maximumSize) {
+            data.remove(b2.removeFirst().key);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.learn.lrucache.bean.policy;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description CLOCK（二次机会）淘汰策略
+ * <p>
+ * 所有数据组成一个环，访问时只把节点的referenced标记置为true，不调整链表，命中路径上没有指针写入。
+ * 逐出时指针沿环移动：遇到有标记的节点清除标记并跳过（给它第二次机会），遇到没有标记的节点就逐出。
+ * 新数据插入到指针之前，即最后才会被检查到。效果接近LRU，读多写少时开销明显更低。
+ */
+public class ClockPolicy<K> implements EvictionPolicy<K> {
+    private final Map<K, Node<K>> data = new HashMap<>();
+    private final NodeList<K> ring = new NodeList<>();
+    // 时钟指针，指向下一个要检查的节点
+    private Node<K> hand;
+
+    @Override
+    public void recordInsert(K key) {
+        Node<K> node = new Node<>(key, 0);
+        data.put(key, node);
+        if (hand == null) {
+            ring.addLast(node);
+            hand = node;
+        } else {
+            ring.addBefore(hand, node);
+        }
+    }
+
+    @Override
+    public void recordAccess(K key) {
+        Node<K> node = data.get(key);
+        if (node != null) {
+            node.referenced = true;
+        }
+    }
+
+    @Override
+    public void recordRemoval(K key, boolean evicted) {
+        Node<K> node = data.remove(key);
+        if (node == null) {
+            return;
+        }
+        if (node == hand) {
+            hand = ring.size() > 1 ? ring.nextOf(node) : null;
+        }
+        ring.remove(node);
+    }
+
+    @Override
+    public K victim() {
+        if (hand == null) {
+            return null;
+        }
+        while (hand.referenced) {
+            hand.referenced = false;
+            hand = ring.nextOf(hand);
+        }
+        return hand.key;
+    }
+}
@@ -0,0 +1,44 @@
+package com.learn.lrucache.bean.policy;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 淘汰策略
+ * <p>
+ * {@link com.learn.lrucache.bean.LruCache} 默认依靠 accessOrder=true 的LinkedHashMap实现LRU。
+ * 传入EvictionPolicy后，LruCache只负责存储数据和统计大小，访问顺序与淘汰对象由策略决定：
+ * 缓存在插入、访问、删除时通知策略，超出容量时调用 {@link #victim()} 选出要逐出的key。
+ * <p>
+ * 策略只在持有缓存锁时被调用，实现不需要线程安全；但每个策略实例只能给一个缓存（分片）使用。
+ */
+public interface EvictionPolicy<K> {
+
+    /**
+     * 新的key放入缓存
+     */
+    void recordInsert(@NonNull K key);
+
+    /**
+     * 已在缓存中的key被读取或者被put覆盖
+     */
+    void recordAccess(@NonNull K key);
+
+    /**
+     * key被移出缓存
+     *
+     * @param evicted true表示是 {@link #victim()} 选出的key被逐出，false表示调用方主动删除
+     */
+    void recordRemoval(@NonNull K key, boolean evicted);
+
+    /**
+     * 选出下一个应该被逐出的key，可以是刚刚插入的key（表示拒绝其进入缓存）。
+     * 选出的key会紧接着通过 {@link #recordRemoval(Object, boolean)} 通知策略。
+     *
+     * @return 要逐出的key，策略中没有任何key时返回null
+     */
+    @Nullable
+    K victim();
+}
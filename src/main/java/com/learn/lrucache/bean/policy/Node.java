@@ -0,0 +1,21 @@
+package com.learn.lrucache.bean.policy;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 策略内部链表的节点
+ */
+final class Node<K> {
+    final K key;
+    // 节点所在的队列，具体含义由各个策略定义
+    int queue;
+    // CLOCK等策略使用的访问标记
+    boolean referenced;
+    Node<K> prev;
+    Node<K> next;
+
+    Node(K key, int queue) {
+        this.key = key;
+        this.queue = queue;
+    }
+}
@@ -0,0 +1,82 @@
+package com.learn.lrucache.bean.policy;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 带哨兵的双向链表，头部为最早加入的节点，所有操作都是O(1)
+ */
+final class NodeList<K> {
+    private final Node<K> head = new Node<>(null, -1);
+    private int size;
+
+    NodeList() {
+        head.prev = head;
+        head.next = head;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    Node<K> first() {
+        return size == 0 ? null : head.next;
+    }
+
+    Node<K> last() {
+        return size == 0 ? null : head.prev;
+    }
+
+    void addLast(Node<K> node) {
+        Node<K> last = head.prev;
+        node.prev = last;
+        node.next = head;
+        last.next = node;
+        head.prev = node;
+        size++;
+    }
+
+    /**
+     * 把节点插入到at之前
+     */
+    void addBefore(Node<K> at, Node<K> node) {
+        Node<K> prev = at.prev;
+        node.prev = prev;
+        node.next = at;
+        prev.next = node;
+        at.prev = node;
+        size++;
+    }
+
+    void remove(Node<K> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+        size--;
+    }
+
+    Node<K> removeFirst() {
+        Node<K> first = first();
+        if (first != null) {
+            remove(first);
+        }
+        return first;
+    }
+
+    void moveToLast(Node<K> node) {
+        remove(node);
+        addLast(node);
+    }
+
+    /**
+     * 环形遍历时的下一个节点，跳过哨兵
+     */
+    Node<K> nextOf(Node<K> node) {
+        Node<K> next = node.next;
+        return next == head ? head.next : next;
+    }
+}
@@ -0,0 +1,88 @@
+package com.learn.lrucache.bean.policy;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 分段LRU（Segmented LRU）淘汰策略
+ * <p>
+ * 缓存分为probation和protected两段，新数据进入probation，在probation中再次被访问时晋升到protected；
+ * protected超出容量时把最久未访问的数据降级回probation。逐出总是优先发生在probation，
+ * 只访问过一次的数据不会挤掉被反复访问的数据。
+ */
+public class SlruPolicy<K> implements EvictionPolicy<K> {
+    private static final int PROBATION = 0;
+    private static final int PROTECTED = 1;
+
+    private final Map<K, Node<K>> data = new HashMap<>();
+    private final NodeList<K> probation = new NodeList<>();
+    private final NodeList<K> protectedList = new NodeList<>();
+    private final int protectedMax;
+
+    /**
+     * @param maximumSize 缓存预计可容纳的最大条目数，protected段占80%
+     */
+    public SlruPolicy(int maximumSize) {
+        this(maximumSize, 0.8);
+    }
+
+    /**
+     * @param maximumSize      缓存预计可容纳的最大条目数
+     * @param protectedPercent protected段占容量的比例，取值 (0, 1)
+     */
+    public SlruPolicy(int maximumSize, double protectedPercent) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize <= 0");
+        }
+        if (protectedPercent <= 0 || protectedPercent >= 1) {
+            throw new IllegalArgumentException("protectedPercent must be in (0, 1)");
+        }
+        this.protectedMax = Math.max(1, (int) (maximumSize * protectedPercent));
+    }
+
+    @Override
+    public void recordInsert(K key) {
+        Node<K> node = new Node<>(key, PROBATION);
+        data.put(key, node);
+        probation.addLast(node);
+    }
+
+    @Override
+    public void recordAccess(K key) {
+        Node<K> node = data.get(key);
+        if (node == null) {
+            return;
+        }
+        if (node.queue == PROTECTED) {
+            protectedList.moveToLast(node);
+            return;
+        }
+        probation.remove(node);
+        node.queue = PROTECTED;
+        protectedList.addLast(node);
+        if (protectedList.size() > protectedMax) {
+            Node<K> demoted = protectedList.removeFirst();
+            demoted.queue = PROBATION;
+            probation.addLast(demoted);
+        }
+    }
+
+    @Override
+    public void recordRemoval(K key, boolean evicted) {
+        Node<K> node = data.remove(key);
+        if (node != null) {
+            (node.queue == PROTECTED ? protectedList : probation).remove(node);
+        }
+    }
+
+    @Override
+    public K victim() {
+        Node<K> victim = probation.first();
+        if (victim == null) {
+            victim = protectedList.first();
+        }
+        return victim == null ? null : victim.key;
+    }
+}
@@ -0,0 +1,108 @@
+package com.learn.lrucache.bean.policy;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 2Q淘汰策略（Johnson & Shasha, 1994，完整版）
+ * <p>
+ * - A1in：FIFO队列，新数据进入这里，默认占容量的25%，在A1in中被访问不调整顺序。
+ * - A1out：幽灵队列，只记录从A1in逐出的key（不保存数据），默认记录容量的50%个key。
+ * - Am：LRU队列，保存被证明是热点的数据。
+ * <p>
+ * 只有在A1out中还有记录的key再次写入时，才认为它是热点并直接进入Am；
+ * 一次性扫描的数据只会在A1in中流过，不会污染Am。
+ */
+public class TwoQueuePolicy<K> implements EvictionPolicy<K> {
+    private static final int IN = 0;
+    private static final int OUT = 1;
+    private static final int MAIN = 2;
+
+    // 包含常驻数据和A1out中的幽灵记录
+    private final Map<K, Node<K>> data = new HashMap<>();
+    private final NodeList<K> in = new NodeList<>();
+    private final NodeList<K> out = new NodeList<>();
+    private final NodeList<K> main = new NodeList<>();
+    private final int inMax;
+    private final int outMax;
+
+    /**
+     * @param maximumSize 缓存预计可容纳的最大条目数
+     */
+    public TwoQueuePolicy(int maximumSize) {
+        this(maximumSize, 0.25, 0.5);
+    }
+
+    /**
+     * @param maximumSize 缓存预计可容纳的最大条目数
+     * @param inPercent   A1in占容量的比例
+     * @param outPercent  A1out记录的key数占容量的比例
+     */
+    public TwoQueuePolicy(int maximumSize, double inPercent, double outPercent) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize <= 0");
+        }
+        if (inPercent <= 0 || inPercent >= 1 || outPercent <= 0) {
+            throw new IllegalArgumentException("inPercent must be in (0, 1) and outPercent > 0");
+        }
+        this.inMax = Math.max(1, (int) (maximumSize * inPercent));
+        this.outMax = Math.max(1, (int) (maximumSize * outPercent));
+    }
+
+    @Override
+    public void recordInsert(K key) {
+        Node<K> node = data.get(key);
+        if (node != null && node.queue == OUT) {
+            // 最近从A1in逐出过，再次出现说明是热点
+            out.remove(node);
+            node.queue = MAIN;
+            main.addLast(node);
+            return;
+        }
+        node = new Node<>(key, IN);
+        data.put(key, node);
+        in.addLast(node);
+    }
+
+    @Override
+    public void recordAccess(K key) {
+        Node<K> node = data.get(key);
+        if (node != null && node.queue == MAIN) {
+            main.moveToLast(node);
+        }
+    }
+
+    @Override
+    public void recordRemoval(K key, boolean evicted) {
+        Node<K> node = data.get(key);
+        if (node == null || node.queue == OUT) {
+            return;
+        }
+        if (node.queue == IN) {
+            in.remove(node);
+            if (evicted) {
+                // 从A1in逐出的key留在A1out中
+                node.queue = OUT;
+                out.addLast(node);
+                if (out.size() > outMax) {
+                    data.remove(out.removeFirst().key);
+                }
+                return;
+            }
+        } else {
+            main.remove(node);
+        }
+        data.remove(key);
+    }
+
+    @Override
+    public K victim() {
+        Node<K> victim = in.size() > inMax || main.isEmpty() ? in.first() : main.first();
+        if (victim == null) {
+            victim = main.first();
+        }
+        return victim == null ? null : victim.key;
+    }
+}
@@ -0,0 +1,139 @@
+package com.learn.lrucache.bean.policy;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description W-TinyLFU淘汰策略
+ * <p>
+ * 纯LRU在一次性扫描大量冷数据（爬虫、批量重算）时会把热点数据全部挤出去。W-TinyLFU由三部分组成：
+ * - 窗口（window）：容量的1%，LRU，新数据先进入这里，吸收突发的新热点。
+ * - 主区（main）：分段LRU，probation（20%）+ protected（80%），在probation中再次被访问的数据晋升到protected。
+ * - 频率过滤器：{@link FrequencySketch}，记录所有key（包括已经不在缓存中的）最近的访问频率。
+ * <p>
+ * 从窗口淘汰出来的数据进入probation成为候选者；需要逐出时，比较候选者（probation尾部）和
+ * probation头部（受害者）的访问频率，只有候选者更频繁时才逐出受害者，否则直接拒绝候选者。
+ * 这样一次性访问的冷数据很难挤掉真正的热点。
+ * <p>
+ * 容量按条目数计算，应与缓存的maxSize一致（按条目计数的缓存）或为预估的条目数。
+ */
+public class WTinyLfuPolicy<K> implements EvictionPolicy<K> {
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final Map<K, Node<K>> data = new HashMap<>();
+    private final NodeList<K> window = new NodeList<>();
+    private final NodeList<K> probation = new NodeList<>();
+    private final NodeList<K> protectedList = new NodeList<>();
+    private final FrequencySketch<K> sketch;
+    private final int windowMax;
+    private final int protectedMax;
+
+    /**
+     * @param maximumSize 缓存预计可容纳的最大条目数
+     */
+    public WTinyLfuPolicy(int maximumSize) {
+        this(maximumSize, 0.01);
+    }
+
+    /**
+     * @param maximumSize   缓存预计可容纳的最大条目数
+     * @param windowPercent 窗口占容量的比例，取值 [0, 1)
+     */
+    public WTinyLfuPolicy(int maximumSize, double windowPercent) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize <= 0");
+        }
+        if (windowPercent < 0 || windowPercent >= 1) {
+            throw new IllegalArgumentException("windowPercent must be in [0, 1)");
+        }
+        this.windowMax = Math.max(1, (int) (maximumSize * windowPercent));
+        int mainMax = Math.max(1, maximumSize - windowMax);
+        this.protectedMax = Math.max(1, (int) (mainMax * 0.8));
+        this.sketch = new FrequencySketch<>(maximumSize);
+    }
+
+    @Override
+    public void recordInsert(K key) {
+        sketch.increment(key);
+        Node<K> node = new Node<>(key, WINDOW);
+        data.put(key, node);
+        window.addLast(node);
+        if (window.size() > windowMax) {
+            // 窗口满了，最久未访问的数据进入probation，成为准入的候选者
+            Node<K> candidate = window.removeFirst();
+            candidate.queue = PROBATION;
+            probation.addLast(candidate);
+        }
+    }
+
+    @Override
+    public void recordAccess(K key) {
+        Node<K> node = data.get(key);
+        if (node == null) {
+            return;
+        }
+        sketch.increment(key);
+        switch (node.queue) {
+            case WINDOW:
+                window.moveToLast(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                node.queue = PROTECTED;
+                protectedList.addLast(node);
+                if (protectedList.size() > protectedMax) {
+                    Node<K> demoted = protectedList.removeFirst();
+                    demoted.queue = PROBATION;
+                    probation.addLast(demoted);
+                }
+                break;
+            case PROTECTED:
+            default:
+                protectedList.moveToLast(node);
+                break;
+        }
+    }
+
+    @Override
+    public void recordRemoval(K key, boolean evicted) {
+        Node<K> node = data.remove(key);
+        if (node != null) {
+            listOf(node).remove(node);
+        }
+    }
+
+    @Override
+    public K victim() {
+        Node<K> victim = probation.first();
+        if (victim != null) {
+            Node<K> candidate = probation.last();
+            if (candidate == victim) {
+                return victim.key;
+            }
+            // TinyLFU准入：候选者的频率更高才替换掉受害者，否则拒绝候选者
+            return sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim.key : candidate.key;
+        }
+        Node<K> first = window.first();
+        if (first != null) {
+            return first.key;
+        }
+        first = protectedList.first();
+        return first == null ? null : first.key;
+    }
+
+    private NodeList<K> listOf(Node<K> node) {
+        switch (node.queue) {
+            case WINDOW:
+                return window;
+            case PROBATION:
+                return probation;
+            case PROTECTED:
+            default:
+                return protectedList;
+        }
+    }
+}
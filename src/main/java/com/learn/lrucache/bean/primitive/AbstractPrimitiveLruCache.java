@@ -0,0 +1,241 @@
+package com.learn.lrucache.bean.primitive;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description {@link IntLruCache} 和 {@link LongLruCache} 共用的槽位数组、索引表、LRU链表和统计
+ * <p>
+ * - 数据保存在按槽位编号的数组中：values[]，LRU双向链表也用int数组 prev[]、next[] 表示；key数组由子类按key的类型保存。
+ * - 索引表是开放寻址（线性探测）的int数组，保存槽位编号+1（0表示空），负载因子不超过0.5；
+ *   删除时使用backward shift，不需要墓碑，查找长度不会随删除变长。
+ * - 所有数组在构造时按maxSize一次分配，之后get/put/remove都不再分配内存。
+ * <p>
+ * 子类只需要实现按key查找和 {@link #hashAt}，其余以包内可见的方法提供，调用时都需要持有锁。
+ */
+abstract class AbstractPrimitiveLruCache<V> {
+    static final int NIL = -1;
+
+    // 索引表，保存槽位编号+1，0表示空
+    final int[] index;
+    final int mask;
+
+    private final Object[] values;
+    private final int[] prev;
+    private final int[] next;
+
+    // LRU链表的头（最久未访问）和尾（最近访问）
+    int head = NIL;
+    private int tail = NIL;
+    // 空闲槽位链表（通过next[]串起来）
+    private int freeHead = NIL;
+    // 从未使用过的第一个槽位
+    private int unused;
+
+    //当前缓存的数量
+    int size;
+    //最大可缓存的数量
+    final int maxSize;
+
+    //put缓存的次数
+    long putCount;
+    //创建的次数，只有实现了create(key)方法后才会累加
+    long createCount;
+    //逐出缓存的次数
+    private long evictionCount;
+    //命中缓存的次数
+    long hitCount;
+    //丢失缓存的次数
+    long missCount;
+
+    /**
+     * @param maxSize 最大存储数量，所有数组按此一次性分配
+     */
+    AbstractPrimitiveLruCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        if (maxSize > 1 << 28) {
+            throw new IllegalArgumentException("maxSize > 2^28");
+        }
+        this.maxSize = maxSize;
+        this.values = new Object[maxSize];
+        this.prev = new int[maxSize];
+        this.next = new int[maxSize];
+        // 不小于2倍maxSize的2的幂，负载因子不超过0.5
+        int capacity = Integer.highestOneBit(maxSize) << 2;
+        this.index = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public synchronized final int size() {
+        return size;
+    }
+
+    public final int maxSize() {
+        return maxSize;
+    }
+
+    public synchronized final long hitCount() {
+        return hitCount;
+    }
+
+    public synchronized final long missCount() {
+        return missCount;
+    }
+
+    public synchronized final long createCount() {
+        return createCount;
+    }
+
+    public synchronized final long putCount() {
+        return putCount;
+    }
+
+    public synchronized final long evictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        long accesses = hitCount + missCount;
+        long hitPercent = accesses != 0 ? (100 * hitCount / accesses) : 0;
+        return getClass().getSimpleName() + "{" +
+                "size=" + size +
+                ", maxSize=" + maxSize +
+                ", hits=" + hitCount +
+                ", misses=" + missCount +
+                ", hitRate=" + hitPercent + "%" +
+                '}';
+    }
+
+    // 以下方法都需要持有锁
+
+    /**
+     * 槽位中保存的key的hash（未截断到索引表大小）
+     */
+    abstract int hashAt(int slot);
+
+    /**
+     * 打散key的hash，低位用来选择索引表的位置
+     */
+    static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @SuppressWarnings("unchecked")
+    final V valueAt(int slot) {
+        return (V) values[slot];
+    }
+
+    final void setValue(int slot, V value) {
+        values[slot] = value;
+    }
+
+    final int nextOf(int slot) {
+        return next[slot];
+    }
+
+    /**
+     * 取出一个空闲槽位，调用方保证还有空闲槽位，并在调用 {@link #link} 之前写入key
+     */
+    final int takeSlot() {
+        if (freeHead != NIL) {
+            int slot = freeHead;
+            freeHead = next[slot];
+            return slot;
+        }
+        return unused++;
+    }
+
+    /**
+     * 把已经写入key的槽位放入索引表和LRU链表的尾部
+     */
+    final void link(int slot, int hash, V value) {
+        values[slot] = value;
+        linkLast(slot);
+
+        int i = hash & mask;
+        while (index[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        index[i] = slot + 1;
+        size++;
+    }
+
+    final void evictHead() {
+        delete(head);
+        evictionCount++;
+    }
+
+    /**
+     * 删除槽位：从索引表和LRU链表中摘除，槽位放回空闲链表
+     */
+    final void delete(int slot) {
+        int i = hashAt(slot) & mask;
+        while (index[i] != slot + 1) {
+            i = (i + 1) & mask;
+        }
+        shiftBackward(i);
+        unlink(slot);
+        values[slot] = null;
+        next[slot] = freeHead;
+        freeHead = slot;
+        size--;
+    }
+
+    final void moveToTail(int slot) {
+        if (slot != tail) {
+            unlink(slot);
+            linkLast(slot);
+        }
+    }
+
+    /**
+     * backward shift删除：把后面探测链上的元素往前挪，填补空位，保证查找在第一个空位处终止是正确的
+     */
+    private void shiftBackward(int hole) {
+        int i = hole;
+        while (true) {
+            i = (i + 1) & mask;
+            int entry = index[i];
+            if (entry == 0) {
+                break;
+            }
+            int ideal = hashAt(entry - 1) & mask;
+            // ideal不在 (hole, i] 这一段（环形）中时，元素可以挪到hole
+            boolean movable = hole <= i ? (ideal <= hole || ideal > i) : (ideal <= hole && ideal > i);
+            if (movable) {
+                index[hole] = entry;
+                hole = i;
+            }
+        }
+        index[hole] = 0;
+    }
+
+    private void linkLast(int slot) {
+        prev[slot] = tail;
+        next[slot] = NIL;
+        if (tail == NIL) {
+            head = slot;
+        } else {
+            next[tail] = slot;
+        }
+        tail = slot;
+    }
+
+    private void unlink(int slot) {
+        int p = prev[slot];
+        int n = next[slot];
+        if (p == NIL) {
+            head = n;
+        } else {
+            next[p] = n;
+        }
+        if (n == NIL) {
+            tail = p;
+        } else {
+            prev[n] = p;
+        }
+    }
+}
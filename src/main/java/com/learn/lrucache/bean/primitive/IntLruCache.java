@@ -0,0 +1,231 @@
+package com.learn.lrucache.bean.primitive;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description key为int的LruCache，不装箱、get/put不分配对象
+ * <p>
+ * {@link com.learn.lrucache.bean.LruCache} 的key是对象：每次查找都要装箱，每条数据还要一个LinkedHashMap.Entry。
+ * 数值型key（例如地区ID）可以使用这个类，与 {@link LongLruCache} 的区别只是key保存在int[]中。
+ * 槽位数组、开放寻址的索引表和LRU链表见 {@link AbstractPrimitiveLruCache}，构造时一次分配，
+ * 之后get/put/remove都不再分配内存。
+ * <p>
+ * 容量按条目数计算（不支持sizeOf），线程安全（synchronized），{@link #entryRemoved} 在锁外回调。
+ */
+public class IntLruCache<V> extends AbstractPrimitiveLruCache<V> {
+    private final int[] keys;
+
+    /**
+     * @param maxSize 最大存储数量，所有数组按此一次性分配
+     */
+    public IntLruCache(int maxSize) {
+        super(maxSize);
+        this.keys = new int[maxSize];
+    }
+
+    /**
+     * Returns the value for {@code key} if it exists in the cache or can be
+     * created by {@link #create}. If a value was returned, it is moved to the
+     * tail of the queue.
+     */
+    @Nullable
+    public V get(int key) {
+        synchronized (this) {
+            int slot = find(key);
+            if (slot != NIL) {
+                hitCount++;
+                moveToTail(slot);
+                return valueAt(slot);
+            }
+            missCount++;
+        }
+
+        V createdValue = create(key);
+        if (createdValue == null) {
+            return null;
+        }
+
+        V mapValue = null;
+        int evictedKey = 0;
+        V evictedValue = null;
+        synchronized (this) {
+            createCount++;
+            int slot = find(key);
+            if (slot != NIL) {
+                // create期间其它线程放入了同一个key，保留已有的值
+                mapValue = valueAt(slot);
+            } else {
+                if (size == maxSize) {
+                    evictedKey = keys[head];
+                    evictedValue = valueAt(head);
+                    evictHead();
+                }
+                insert(key, createdValue);
+            }
+        }
+
+        if (mapValue != null) {
+            entryRemoved(false, key, createdValue, mapValue);
+            return mapValue;
+        }
+        if (evictedValue != null) {
+            entryRemoved(true, evictedKey, evictedValue, null);
+        }
+        return createdValue;
+    }
+
+    /**
+     * Caches {@code value} for {@code key}. The value is moved to the tail of
+     * the queue.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public V put(int key, @NonNull V value) {
+        if (value == null) {
+            throw new NullPointerException("value == null");
+        }
+
+        V previous = null;
+        int evictedKey = 0;
+        V evictedValue = null;
+        synchronized (this) {
+            putCount++;
+            int slot = find(key);
+            if (slot != NIL) {
+                previous = valueAt(slot);
+                setValue(slot, value);
+                moveToTail(slot);
+            } else {
+                if (size == maxSize) {
+                    // 槽位已满，先逐出链表头部的数据让出槽位
+                    evictedKey = keys[head];
+                    evictedValue = valueAt(head);
+                    evictHead();
+                }
+                insert(key, value);
+            }
+        }
+
+        if (previous != null) {
+            entryRemoved(false, key, previous, value);
+        } else if (evictedValue != null) {
+            entryRemoved(true, evictedKey, evictedValue, null);
+        }
+        return previous;
+    }
+
+    /**
+     * Removes the entry for {@code key} if it exists.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public V remove(int key) {
+        V previous;
+        synchronized (this) {
+            int slot = find(key);
+            if (slot == NIL) {
+                return null;
+            }
+            previous = valueAt(slot);
+            delete(slot);
+        }
+
+        entryRemoved(false, key, previous, null);
+        return previous;
+    }
+
+    /**
+     * 是否包含key，不改变访问顺序
+     */
+    public synchronized boolean containsKey(int key) {
+        return find(key) != NIL;
+    }
+
+    /**
+     * Clear the cache, calling {@link #entryRemoved} on each removed entry.
+     */
+    public final void evictAll() {
+        while (true) {
+            int key;
+            V value;
+            synchronized (this) {
+                if (head == NIL) {
+                    break;
+                }
+                key = keys[head];
+                value = valueAt(head);
+                evictHead();
+            }
+            entryRemoved(true, key, value, null);
+        }
+    }
+
+    /**
+     * Called for entries that have been evicted or removed. The method is
+     * called without synchronization.
+     *
+     * @see com.learn.lrucache.bean.LruCache#entryRemoved
+     */
+    protected void entryRemoved(boolean evicted, int key, @NonNull V oldValue, @Nullable V newValue) {
+    }
+
+    /**
+     * Called after a cache miss to compute a value for the corresponding key.
+     * The default implementation returns null.
+     *
+     * @see com.learn.lrucache.bean.LruCache#create
+     */
+    @Nullable
+    protected V create(int key) {
+        return null;
+    }
+
+    /**
+     * 返回所有key，按最久未访问到最近访问排序
+     */
+    public synchronized int[] keys() {
+        int[] result = new int[size];
+        int i = 0;
+        for (int slot = head; slot != NIL; slot = nextOf(slot)) {
+            result[i++] = keys[slot];
+        }
+        return result;
+    }
+
+    // 以下方法都需要持有锁
+
+    @Override
+    int hashAt(int slot) {
+        return hash(keys[slot]);
+    }
+
+    private static int hash(int key) {
+        return spread(key);
+    }
+
+    private int find(int key) {
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            int entry = index[i];
+            if (entry == 0) {
+                return NIL;
+            }
+            if (keys[entry - 1] == key) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * 放入一个不存在的key，调用方保证还有空闲槽位
+     */
+    private void insert(int key, V value) {
+        int slot = takeSlot();
+        keys[slot] = key;
+        link(slot, hash(key), value);
+    }
+}
@@ -0,0 +1,200 @@
+package com.learn.lrucache.bean.stats;
+
+import com.learn.lrucache.bean.RemovalCause;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 缓存统计数据的不可变快照，计数使用long，避免高QPS下溢出
+ */
+public final class CacheStats {
+    private static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0, 0, 0, 0);
+
+    private final long hitCount;
+    private final long missCount;
+    private final long putCount;
+    private final long evictionCount;
+    private final long expirationCount;
+    private final long loadSuccessCount;
+    private final long loadFailureCount;
+    private final long totalLoadTime;
+
+    public CacheStats(long hitCount, long missCount, long putCount, long evictionCount, long expirationCount) {
+        this(hitCount, missCount, putCount, evictionCount, expirationCount, 0, 0, 0);
+    }
+
+    public CacheStats(long hitCount, long missCount, long putCount, long evictionCount, long expirationCount,
+                      long loadSuccessCount, long loadFailureCount, long totalLoadTime) {
+        if (hitCount < 0 || missCount < 0 || putCount < 0 || evictionCount < 0 || expirationCount < 0
+                || loadSuccessCount < 0 || loadFailureCount < 0 || totalLoadTime < 0) {
+            throw new IllegalArgumentException("count < 0");
+        }
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.putCount = putCount;
+        this.evictionCount = evictionCount;
+        this.expirationCount = expirationCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTime = totalLoadTime;
+    }
+
+    public static CacheStats empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 命中次数
+     */
+    public long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * 未命中次数（包括已过期的数据）
+     */
+    public long missCount() {
+        return missCount;
+    }
+
+    /**
+     * put的次数
+     */
+    public long putCount() {
+        return putCount;
+    }
+
+    /**
+     * 因容量不足被逐出的次数
+     */
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * 因过期被移除的次数
+     */
+    public long expirationCount() {
+        return expirationCount;
+    }
+
+    /**
+     * 按原因统计的自动移除次数，只有 {@link RemovalCause#SIZE} 和 {@link RemovalCause#EXPIRED} 会被统计
+     */
+    public long evictionCount(RemovalCause cause) {
+        switch (cause) {
+            case SIZE:
+                return evictionCount;
+            case EXPIRED:
+                return expirationCount;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * 加载成功的次数
+     */
+    public long loadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    /**
+     * 加载失败（抛出异常或返回null）的次数
+     */
+    public long loadFailureCount() {
+        return loadFailureCount;
+    }
+
+    public long loadCount() {
+        return loadSuccessCount + loadFailureCount;
+    }
+
+    /**
+     * 加载的总耗时（纳秒）
+     */
+    public long totalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /**
+     * 平均每次加载的耗时（纳秒）
+     */
+    public double averageLoadPenalty() {
+        long loadCount = loadCount();
+        return loadCount == 0 ? 0.0 : (double) totalLoadTime / loadCount;
+    }
+
+    public long requestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * 命中率，没有请求时返回1.0
+     */
+    public double hitRate() {
+        long requestCount = requestCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * 返回两份统计数据之和，用于把各分片的数据汇总
+     */
+    public CacheStats plus(CacheStats other) {
+        return new CacheStats(
+                hitCount + other.hitCount,
+                missCount + other.missCount,
+                putCount + other.putCount,
+                evictionCount + other.evictionCount,
+                expirationCount + other.expirationCount,
+                loadSuccessCount + other.loadSuccessCount,
+                loadFailureCount + other.loadFailureCount,
+                totalLoadTime + other.totalLoadTime);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CacheStats)) {
+            return false;
+        }
+        CacheStats that = (CacheStats) o;
+        return hitCount == that.hitCount
+                && missCount == that.missCount
+                && putCount == that.putCount
+                && evictionCount == that.evictionCount
+                && expirationCount == that.expirationCount
+                && loadSuccessCount == that.loadSuccessCount
+                && loadFailureCount == that.loadFailureCount
+                && totalLoadTime == that.totalLoadTime;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Long.hashCode(hitCount);
+        result = 31 * result + Long.hashCode(missCount);
+        result = 31 * result + Long.hashCode(putCount);
+        result = 31 * result + Long.hashCode(evictionCount);
+        result = 31 * result + Long.hashCode(expirationCount);
+        result = 31 * result + Long.hashCode(loadSuccessCount);
+        result = 31 * result + Long.hashCode(loadFailureCount);
+        result = 31 * result + Long.hashCode(totalLoadTime);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", putCount=" + putCount +
+                ", evictionCount=" + evictionCount +
+                ", expirationCount=" + expirationCount +
+                ", loadSuccessCount=" + loadSuccessCount +
+                ", loadFailureCount=" + loadFailureCount +
+                ", totalLoadTime=" + totalLoadTime +
+                '}';
+    }
+}
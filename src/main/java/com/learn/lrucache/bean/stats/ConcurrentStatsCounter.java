@@ -0,0 +1,92 @@
+package com.learn.lrucache.bean.stats;
+
+import com.learn.lrucache.bean.RemovalCause;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 线程安全的统计计数器
+ * <p>
+ * 每个计数都是一个 {@link LongAdder}：无竞争时只CAS一个base字段，出现竞争后把累加分散到按线程
+ * 分配的Cell上，Cell带有 {@code @Contended} 填充，不同线程的累加不会互相造成伪共享。
+ * 读取时只是把Cell求和，不加锁，也不会和写线程竞争。
+ */
+public final class ConcurrentStatsCounter implements StatsCounter {
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder putCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+    private final LongAdder loadSuccessCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+
+    @Override
+    public void recordHit() {
+        hitCount.increment();
+    }
+
+    @Override
+    public void recordMiss() {
+        missCount.increment();
+    }
+
+    @Override
+    public void recordPut() {
+        putCount.increment();
+    }
+
+    @Override
+    public void recordEviction() {
+        evictionCount.increment();
+    }
+
+    @Override
+    public void recordExpiration() {
+        expirationCount.increment();
+    }
+
+    @Override
+    public void recordLoadSuccess(long loadTime) {
+        loadSuccessCount.increment();
+        totalLoadTime.add(loadTime);
+    }
+
+    @Override
+    public void recordLoadFailure(long loadTime) {
+        loadFailureCount.increment();
+        totalLoadTime.add(loadTime);
+    }
+
+    @Override
+    public void recordEviction(RemovalCause cause) {
+        if (cause == RemovalCause.SIZE) {
+            evictionCount.increment();
+        } else if (cause == RemovalCause.EXPIRED) {
+            expirationCount.increment();
+        }
+    }
+
+    /**
+     * 返回当前计数的快照，并发写入时各计数之间不保证是同一时刻的值
+     */
+    @Override
+    public CacheStats snapshot() {
+        return new CacheStats(
+                hitCount.sum(),
+                missCount.sum(),
+                putCount.sum(),
+                evictionCount.sum(),
+                expirationCount.sum(),
+                loadSuccessCount.sum(),
+                loadFailureCount.sum(),
+                totalLoadTime.sum());
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+}
@@ -0,0 +1,34 @@
+package com.learn.lrucache.bean.stats;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 不记录任何延迟
+ */
+enum DisabledLatencyRecorder implements LatencyRecorder {
+    INSTANCE;
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public void record(int shard, Operation operation, long nanos) {
+    }
+
+    @Override
+    public LatencySnapshot snapshot(Operation operation) {
+        return LatencySnapshot.empty();
+    }
+
+    @Override
+    public LatencySnapshot snapshot(int shard, Operation operation) {
+        return LatencySnapshot.empty();
+    }
+
+    @Override
+    public String toString() {
+        return "DisabledLatencyRecorder";
+    }
+}
@@ -0,0 +1,46 @@
+package com.learn.lrucache.bean.stats;
+
+import com.learn.lrucache.bean.RemovalCause;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 不记录任何统计的计数器
+ */
+enum DisabledStatsCounter implements StatsCounter {
+    INSTANCE;
+
+    @Override
+    public void recordHit() {
+    }
+
+    @Override
+    public void recordMiss() {
+    }
+
+    @Override
+    public void recordPut() {
+    }
+
+    @Override
+    public void recordLoadSuccess(long loadTime) {
+    }
+
+    @Override
+    public void recordLoadFailure(long loadTime) {
+    }
+
+    @Override
+    public void recordEviction(RemovalCause cause) {
+    }
+
+    @Override
+    public CacheStats snapshot() {
+        return CacheStats.empty();
+    }
+
+    @Override
+    public String toString() {
+        return "DisabledStatsCounter";
+    }
+}
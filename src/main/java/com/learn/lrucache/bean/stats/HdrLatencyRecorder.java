@@ -0,0 +1,91 @@
+package com.learn.lrucache.bean.stats;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 基于HdrHistogram的延迟记录
+ * <p>
+ * 写入走 {@link Recorder#recordValue}，是wait-free的，不同线程之间不加锁。
+ * 读取时用 {@link Recorder#getIntervalHistogram(Histogram)} 取出上次读取之后的数据，并计算好所有分位数缓存起来；
+ * 一个刷新周期（至少1秒）内的多次读取返回同一份结果，同一次采集中的各个分位数指标来自同一个时间窗口。
+ * <p>
+ * 直方图按需扩容，只占用实际出现过的量级，每个Recorder通常在几十KB以内。
+ */
+final class HdrLatencyRecorder implements LatencyRecorder {
+    private static final int SIGNIFICANT_DIGITS = 2;
+    private static final long MIN_REFRESH_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    // [分片][操作]
+    private final Recorder[][] recorders;
+    private final Histogram[][] intervals;
+    private final LatencySnapshot[][] shardSnapshots;
+    private final LatencySnapshot[] snapshots;
+    private long refreshedAt;
+    private boolean refreshed;
+
+    HdrLatencyRecorder(int shards) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("shards <= 0");
+        }
+        recorders = new Recorder[shards][OPERATIONS.length];
+        intervals = new Histogram[shards][OPERATIONS.length];
+        shardSnapshots = new LatencySnapshot[shards][OPERATIONS.length];
+        snapshots = new LatencySnapshot[OPERATIONS.length];
+        for (int i = 0; i < shards; i++) {
+            for (int j = 0; j < OPERATIONS.length; j++) {
+                recorders[i][j] = new Recorder(SIGNIFICANT_DIGITS);
+            }
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void record(int shard, Operation operation, long nanos) {
+        recorders[shard][operation.ordinal()].recordValue(Math.max(0L, nanos));
+    }
+
+    @Override
+    public synchronized LatencySnapshot snapshot(Operation operation) {
+        refreshIfStale();
+        return snapshots[operation.ordinal()];
+    }
+
+    @Override
+    public synchronized LatencySnapshot snapshot(int shard, Operation operation) {
+        refreshIfStale();
+        return shardSnapshots[shard][operation.ordinal()];
+    }
+
+    /**
+     * 距离上次刷新超过1秒时，取出所有Recorder的区间数据并重新计算分位数
+     */
+    private void refreshIfStale() {
+        long now = System.nanoTime();
+        if (refreshed && now - refreshedAt < MIN_REFRESH_INTERVAL) {
+            return;
+        }
+        refreshed = true;
+        refreshedAt = now;
+        for (int j = 0; j < OPERATIONS.length; j++) {
+            Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+            for (int i = 0; i < recorders.length; i++) {
+                // 复用上一次的直方图，避免每次刷新都重新分配
+                Histogram interval = recorders[i][j].getIntervalHistogram(intervals[i][j]);
+                intervals[i][j] = interval;
+                shardSnapshots[i][j] = LatencySnapshot.of(interval);
+                total.add(interval);
+            }
+            snapshots[j] = LatencySnapshot.of(total);
+        }
+    }
+}
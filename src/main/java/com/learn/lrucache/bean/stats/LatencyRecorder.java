@@ -0,0 +1,63 @@
+package com.learn.lrucache.bean.stats;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 记录缓存热点路径上的延迟分布
+ * <p>
+ * 平均值会掩盖TP999的劣化，所以延迟按分片、按操作记录到HdrHistogram中，导出时计算分位数。
+ * 构造缓存时选择实现：{@link #disabled()} 什么也不做，缓存也不会调用 {@code System.nanoTime()}；
+ * {@link #hdr(int)} 为每个分片、每种操作各创建一个无锁的 {@code org.HdrHistogram.Recorder}。
+ */
+public interface LatencyRecorder {
+
+    /**
+     * 被记录的操作
+     */
+    enum Operation {
+        // 查找（不包括未命中后的加载）
+        GET,
+        // 放入
+        PUT,
+        // 未命中后通过loader加载
+        LOAD,
+        // 等待分片锁
+        LOCK_WAIT
+    }
+
+    /**
+     * 是否真正记录，为false时调用方应跳过计时
+     */
+    boolean isEnabled();
+
+    /**
+     * 记录一次操作的耗时
+     *
+     * @param shard 分片下标
+     * @param nanos 耗时（纳秒）
+     */
+    void record(int shard, Operation operation, long nanos);
+
+    /**
+     * 所有分片合并后的延迟分布，统计的是最近一个刷新周期内的数据
+     */
+    LatencySnapshot snapshot(Operation operation);
+
+    /**
+     * 单个分片的延迟分布
+     */
+    LatencySnapshot snapshot(int shard, Operation operation);
+
+    static LatencyRecorder disabled() {
+        return DisabledLatencyRecorder.INSTANCE;
+    }
+
+    /**
+     * 基于HdrHistogram的实现，精度为2位有效数字
+     *
+     * @param shards 分片数量
+     */
+    static LatencyRecorder hdr(int shards) {
+        return new HdrLatencyRecorder(shards);
+    }
+}
@@ -0,0 +1,121 @@
+package com.learn.lrucache.bean.stats;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Locale;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 一个时间窗口内延迟分布的不可变快照，单位为纳秒
+ */
+public final class LatencySnapshot {
+    private static final LatencySnapshot EMPTY = new LatencySnapshot(0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    private final long count;
+    private final long min;
+    private final long max;
+    private final double mean;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long p999;
+    private final long p9999;
+
+    private LatencySnapshot(long count, long min, long max, double mean,
+                            long p50, long p90, long p99, long p999, long p9999) {
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.p9999 = p9999;
+    }
+
+    public static LatencySnapshot empty() {
+        return EMPTY;
+    }
+
+    static LatencySnapshot of(Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return EMPTY;
+        }
+        return new LatencySnapshot(
+                histogram.getTotalCount(),
+                histogram.getMinValue(),
+                histogram.getMaxValue(),
+                histogram.getMean(),
+                histogram.getValueAtPercentile(50),
+                histogram.getValueAtPercentile(90),
+                histogram.getValueAtPercentile(99),
+                histogram.getValueAtPercentile(99.9),
+                histogram.getValueAtPercentile(99.99));
+    }
+
+    /**
+     * 窗口内记录的次数
+     */
+    public long count() {
+        return count;
+    }
+
+    public long min() {
+        return min;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public double mean() {
+        return mean;
+    }
+
+    /**
+     * 返回给定分位数对应的延迟，只支持0.5、0.9、0.99、0.999、0.9999
+     */
+    public long valueAtQuantile(double quantile) {
+        if (quantile == 0.5) {
+            return p50;
+        } else if (quantile == 0.9) {
+            return p90;
+        } else if (quantile == 0.99) {
+            return p99;
+        } else if (quantile == 0.999) {
+            return p999;
+        } else if (quantile == 0.9999) {
+            return p9999;
+        }
+        throw new IllegalArgumentException("Unsupported quantile: " + quantile);
+    }
+
+    public long p50() {
+        return p50;
+    }
+
+    public long p90() {
+        return p90;
+    }
+
+    public long p99() {
+        return p99;
+    }
+
+    public long p999() {
+        return p999;
+    }
+
+    public long p9999() {
+        return p9999;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "LatencySnapshot{count=%d, min=%dns, mean=%.1fns, p50=%dns, p90=%dns, p99=%dns, p999=%dns, p9999=%dns, max=%dns}",
+                count, min, mean, p50, p90, p99, p999, p9999, max);
+    }
+}
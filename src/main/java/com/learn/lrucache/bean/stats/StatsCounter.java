@@ -0,0 +1,60 @@
+package com.learn.lrucache.bean.stats;
+
+import com.learn.lrucache.bean.RemovalCause;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 缓存统计的记录接口
+ * <p>
+ * 缓存在命中、未命中、写入、加载、逐出时调用对应的方法，{@link #snapshot()} 返回long计数的快照，
+ * 可以通过 {@code HashLruCacheMetrics} 等绑定到Micrometer。实现必须线程安全，并且不能阻塞，
+ * 默认实现是 {@link ConcurrentStatsCounter}；不需要统计时使用 {@link #disabled()}。
+ */
+public interface StatsCounter {
+
+    void recordHit();
+
+    void recordMiss();
+
+    void recordPut();
+
+    /**
+     * 加载成功
+     *
+     * @param loadTime 加载耗时（纳秒）
+     */
+    void recordLoadSuccess(long loadTime);
+
+    /**
+     * 加载失败（抛出异常或返回null）
+     *
+     * @param loadTime 加载耗时（纳秒）
+     */
+    void recordLoadFailure(long loadTime);
+
+    /**
+     * 数据被缓存自动移除，只统计 {@link RemovalCause#wasEvicted()} 为true的原因（容量不足、过期）
+     */
+    void recordEviction(RemovalCause cause);
+
+    default void recordEviction() {
+        recordEviction(RemovalCause.SIZE);
+    }
+
+    default void recordExpiration() {
+        recordEviction(RemovalCause.EXPIRED);
+    }
+
+    /**
+     * 当前计数的快照
+     */
+    CacheStats snapshot();
+
+    /**
+     * 什么也不记录的计数器，热点路径上没有任何开销
+     */
+    static StatsCounter disabled() {
+        return DisabledStatsCounter.INSTANCE;
+    }
+}
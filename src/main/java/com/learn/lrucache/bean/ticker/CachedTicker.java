@@ -0,0 +1,65 @@
+package com.learn.lrucache.bean.ticker;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 后台刷新的粗粒度时钟
+ * <p>
+ * 缓存的每次put/get都需要当前时间，直接调用 {@link System#currentTimeMillis()} 会在热点路径上
+ * 引入系统调用（或vDSO调用）及其耗时抖动。这里由一个守护线程按固定间隔刷新时间，
+ * 读取方只做一次volatile读。过期时间以分钟计，毫秒级的误差可以忽略。
+ */
+public final class CachedTicker implements Ticker {
+    // 默认刷新间隔（毫秒）
+    public static final long DEFAULT_GRANULARITY = 1;
+
+    private volatile long now;
+    private volatile boolean running = true;
+    private final Thread updater;
+
+    public CachedTicker() {
+        this(DEFAULT_GRANULARITY);
+    }
+
+    /**
+     * @param granularity 刷新间隔（毫秒），即时钟的精度
+     */
+    public CachedTicker(long granularity) {
+        if (granularity <= 0) {
+            throw new IllegalArgumentException("granularity <= 0");
+        }
+        final long parkNanos = granularity * 1000_000L;
+        this.now = System.currentTimeMillis();
+        this.updater = new Thread(() -> {
+            while (running) {
+                now = System.currentTimeMillis();
+                LockSupport.parkNanos(this, parkNanos);
+            }
+        }, "CachedTicker");
+        updater.setDaemon(true);
+        updater.start();
+    }
+
+    static CachedTicker instance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public long read() {
+        return now;
+    }
+
+    /**
+     * 停止后台刷新线程，之后读取到的时间不再变化
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(updater);
+    }
+
+    private static final class Holder {
+        private static final CachedTicker INSTANCE = new CachedTicker();
+    }
+}
@@ -0,0 +1,42 @@
+package com.learn.lrucache.bean.ticker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 手动推进的时钟，用于测试过期逻辑时得到确定的结果
+ */
+public final class ManualTicker implements Ticker {
+    private final AtomicLong now;
+
+    public ManualTicker() {
+        this(0);
+    }
+
+    public ManualTicker(long now) {
+        this.now = new AtomicLong(now);
+    }
+
+    @Override
+    public long read() {
+        return now.get();
+    }
+
+    /**
+     * 把时间向前推进
+     */
+    public ManualTicker advance(long duration, TimeUnit unit) {
+        now.addAndGet(unit.toMillis(duration));
+        return this;
+    }
+
+    /**
+     * 直接设置当前时间
+     */
+    public ManualTicker set(long now) {
+        this.now.set(now);
+        return this;
+    }
+}
@@ -0,0 +1,37 @@
+package com.learn.lrucache.bean.ticker;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 时间源，缓存中所有与过期相关的时间都从这里读取，单位为毫秒
+ */
+public interface Ticker {
+
+    /**
+     * 返回当前时间（毫秒）
+     */
+    long read();
+
+    /**
+     * 每次都调用 {@link System#currentTimeMillis()}，精确但每次读取都有开销
+     */
+    static Ticker systemTicker() {
+        return SystemTicker.INSTANCE;
+    }
+
+    /**
+     * 由后台线程每毫秒刷新一次的缓存时钟，读取只是一次volatile读，精度为毫秒级
+     */
+    static Ticker cachedTicker() {
+        return CachedTicker.instance();
+    }
+
+    enum SystemTicker implements Ticker {
+        INSTANCE;
+
+        @Override
+        public long read() {
+            return System.currentTimeMillis();
+        }
+    }
+}
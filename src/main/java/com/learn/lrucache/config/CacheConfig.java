@@ -0,0 +1,42 @@
+package com.learn.lrucache.config;
+
+import com.learn.lrucache.bean.HashLruCache;
+import com.learn.lrucache.metrics.HashLruCacheEndpoint;
+import com.learn.lrucache.metrics.HashLruCacheMetrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 缓存实例及其监控指标。每个缓存以name标签区分，分片数据带shard标签，
+ * 可以在 /actuator/metrics/cache.gets?tag=cache:area 或JMX的metrics域中查看；
+ * 分片诊断数据（锁等待、分片倾斜、热点key）在 /actuator/lrucache 中查看
+ */
+@Configuration
+public class CacheConfig {
+    public static final String AREA_CACHE = "area";
+
+    @Bean
+    public HashLruCache<String, Object> areaCache() {
+        return HashLruCache.<String, Object>newBuilder()
+                .maxSize(30)
+                .recordLatency(true)
+                .diagnostics(16)
+                .build();
+    }
+
+    @Bean
+    public MeterBinder areaCacheMetrics(HashLruCache<String, Object> areaCache) {
+        return new HashLruCacheMetrics(areaCache, AREA_CACHE, Tags.empty());
+    }
+
+    @Bean
+    public HashLruCacheEndpoint hashLruCacheEndpoint(Map<String, HashLruCache<?, ?>> caches) {
+        return new HashLruCacheEndpoint(caches);
+    }
+}
@@ -0,0 +1,55 @@
+package com.learn.lrucache.metrics;
+
+import com.learn.lrucache.bean.HashLruCache;
+import com.learn.lrucache.bean.diagnostics.CacheDiagnostics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description Actuator端点，返回各个 {@link HashLruCache} 的分片诊断数据
+ * <p>
+ * - GET /actuator/lrucache：所有缓存，按Bean名称排列
+ * - GET /actuator/lrucache/{name}?topK=20：单个缓存，topK为热点key的数量，默认10
+ * <p>
+ * 需要在 management.endpoints.web.exposure.include 中加入lrucache。
+ */
+@Endpoint(id = "lrucache")
+public class HashLruCacheEndpoint {
+    private static final int DEFAULT_TOP_K = 10;
+
+    private final Map<String, HashLruCache<?, ?>> caches;
+
+    public HashLruCacheEndpoint(Map<String, HashLruCache<?, ?>> caches) {
+        this.caches = new TreeMap<>(caches);
+    }
+
+    @ReadOperation
+    public Map<String, CacheDiagnostics> caches() {
+        Map<String, CacheDiagnostics> result = new LinkedHashMap<>();
+        for (Map.Entry<String, HashLruCache<?, ?>> entry : caches.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().diagnostics(DEFAULT_TOP_K));
+        }
+        return result;
+    }
+
+    /**
+     * @return 不存在该名称的缓存时返回null，Actuator会响应404
+     */
+    @ReadOperation
+    @Nullable
+    public CacheDiagnostics cache(@Selector String name, @Nullable Integer topK) {
+        HashLruCache<?, ?> cache = caches.get(name);
+        if (cache == null) {
+            return null;
+        }
+        return cache.diagnostics(topK == null || topK <= 0 ? DEFAULT_TOP_K : topK);
+    }
+}
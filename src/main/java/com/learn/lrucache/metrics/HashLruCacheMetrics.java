@@ -0,0 +1,173 @@
+package com.learn.lrucache.metrics;
+
+import com.learn.lrucache.bean.HashLruCache;
+import com.learn.lrucache.bean.RemovalCause;
+import com.learn.lrucache.bean.stats.LatencyRecorder;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 把 {@link HashLruCache} 的统计数据绑定到Micrometer
+ * <p>
+ * 除了Micrometer约定的 cache.size、cache.gets、cache.puts、cache.evictions 之外，还有：
+ * - cache.removals{cause=size|expired}：按原因统计的自动移除次数
+ * - cache.load{result=success|failure}、cache.load.duration：加载次数和总耗时
+ * - cache.shard.size、cache.shard.gets{result}、cache.shard.evictions：带shard标签的分片数据，用于发现分片倾斜。
+ * 分片指标按绑定时的分片数量注册，{@link HashLruCache#reshard(int)} 之后已经不存在的分片返回NaN
+ * - cache.latency{op,quantile}、cache.latency.max{op}：开启延迟记录时，最近一个刷新周期内各操作的延迟分位数，
+ * cache.shard.latency{op,quantile,shard} 是每个分片的p99和p999
+ * <p>
+ * 在Spring Boot中注册为MeterBinder的Bean即可出现在Actuator的 /actuator/metrics 和JMX中。
+ */
+public class HashLruCacheMetrics extends CacheMeterBinder {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999, 0.9999};
+    private static final double[] SHARD_QUANTILES = {0.99, 0.999};
+
+    private final HashLruCache<?, ?> cache;
+
+    public HashLruCacheMetrics(HashLruCache<?, ?> cache, String cacheName, Iterable<Tag> tags) {
+        super(cache, cacheName, tags);
+        this.cache = cache;
+    }
+
+    /**
+     * 把缓存的统计数据注册到registry
+     *
+     * @param tags 成对出现的标签名和值
+     */
+    public static <C extends HashLruCache<?, ?>> C monitor(MeterRegistry registry, C cache, String cacheName,
+                                                           String... tags) {
+        new HashLruCacheMetrics(cache, cacheName, Tags.of(tags)).bindTo(registry);
+        return cache;
+    }
+
+    @Override
+    protected Long size() {
+        return cache.weightedSize();
+    }
+
+    @Override
+    protected long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    @Override
+    protected Long missCount() {
+        return cache.stats().missCount();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    @Override
+    protected long putCount() {
+        return cache.stats().putCount();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        Iterable<Tag> tags = getTagsWithCacheName();
+
+        for (RemovalCause cause : new RemovalCause[]{RemovalCause.SIZE, RemovalCause.EXPIRED}) {
+            FunctionCounter.builder("cache.removals", cache, c -> c.stats().evictionCount(cause))
+                    .tags(tags)
+                    .tag("cause", cause.name().toLowerCase())
+                    .description("The number of entries removed automatically, by cause")
+                    .register(registry);
+        }
+
+        FunctionCounter.builder("cache.load", cache, c -> c.stats().loadSuccessCount())
+                .tags(tags)
+                .tag("result", "success")
+                .description("The number of times cache lookup methods have successfully loaded a new value")
+                .register(registry);
+        FunctionCounter.builder("cache.load", cache, c -> c.stats().loadFailureCount())
+                .tags(tags)
+                .tag("result", "failure")
+                .description("The number of times cache lookup methods failed to load a new value")
+                .register(registry);
+        TimeGauge.builder("cache.load.duration", cache, TimeUnit.NANOSECONDS, c -> c.stats().totalLoadTime())
+                .tags(tags)
+                .description("The time the cache has spent loading new values")
+                .register(registry);
+        Gauge.builder("cache.max.size", cache, HashLruCache::maxWeight)
+                .tags(tags)
+                .description("The maximum number of entries, or total weight when weighted, the cache may contain")
+                .register(registry);
+
+        for (int i = 0; i < cache.tableSize(); i++) {
+            int shard = i;
+            Tags shardTags = Tags.concat(tags, "shard", String.valueOf(shard));
+            Gauge.builder("cache.shard.size", cache, c -> shard < c.tableSize() ? c.shardSize(shard) : Double.NaN)
+                    .tags(shardTags)
+                    .description("The number of entries in this shard")
+                    .register(registry);
+            FunctionCounter.builder("cache.shard.gets", cache, c -> shard < c.tableSize() ? c.shardStats(shard).hitCount() : Double.NaN)
+                    .tags(shardTags)
+                    .tag("result", "hit")
+                    .description("The number of times lookups in this shard returned a cached value")
+                    .register(registry);
+            FunctionCounter.builder("cache.shard.gets", cache, c -> shard < c.tableSize() ? c.shardStats(shard).missCount() : Double.NaN)
+                    .tags(shardTags)
+                    .tag("result", "miss")
+                    .description("The number of times lookups in this shard returned null or an expired value")
+                    .register(registry);
+            FunctionCounter.builder("cache.shard.evictions", cache, c -> shard < c.tableSize() ? c.shardStats(shard).evictionCount() : Double.NaN)
+                    .tags(shardTags)
+                    .description("The number of entries evicted from this shard")
+                    .register(registry);
+        }
+
+        if (cache.isRecordingLatency()) {
+            bindLatencyMetrics(registry, tags);
+        }
+    }
+
+    private void bindLatencyMetrics(MeterRegistry registry, Iterable<Tag> tags) {
+        for (LatencyRecorder.Operation operation : LatencyRecorder.Operation.values()) {
+            String op = operation.name().toLowerCase(Locale.ROOT);
+            for (double quantile : QUANTILES) {
+                TimeGauge.builder("cache.latency", cache, TimeUnit.NANOSECONDS,
+                        c -> c.latencySnapshot(operation).valueAtQuantile(quantile))
+                        .tags(tags)
+                        .tag("op", op)
+                        .tag("quantile", String.valueOf(quantile))
+                        .description("The latency of cache operations at the given quantile over the last interval")
+                        .register(registry);
+            }
+            TimeGauge.builder("cache.latency.max", cache, TimeUnit.NANOSECONDS,
+                    c -> c.latencySnapshot(operation).max())
+                    .tags(tags)
+                    .tag("op", op)
+                    .description("The maximum latency of cache operations over the last interval")
+                    .register(registry);
+
+            for (int i = 0; i < cache.tableSize(); i++) {
+                int shard = i;
+                for (double quantile : SHARD_QUANTILES) {
+                    TimeGauge.builder("cache.shard.latency", cache, TimeUnit.NANOSECONDS,
+                            c -> shard < c.tableSize()
+                                    ? c.shardLatencySnapshot(shard, operation).valueAtQuantile(quantile) : Double.NaN)
+                            .tags(tags)
+                            .tag("op", op)
+                            .tag("quantile", String.valueOf(quantile))
+                            .tag("shard", String.valueOf(shard))
+                            .description("The latency of operations on this shard at the given quantile over the last interval")
+                            .register(registry);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.learn.lrucache.metrics;
+
+import com.learn.lrucache.bean.LruCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 把 {@link LruCache} 的统计数据绑定到Micrometer，create的调用按加载统计
+ */
+public class LruCacheMetrics extends CacheMeterBinder {
+    private final LruCache<?, ?> cache;
+
+    public LruCacheMetrics(LruCache<?, ?> cache, String cacheName, Iterable<Tag> tags) {
+        super(cache, cacheName, tags);
+        this.cache = cache;
+    }
+
+    /**
+     * 把缓存的统计数据注册到registry
+     *
+     * @param tags 成对出现的标签名和值
+     */
+    public static <C extends LruCache<?, ?>> C monitor(MeterRegistry registry, C cache, String cacheName,
+                                                       String... tags) {
+        new LruCacheMetrics(cache, cacheName, Tags.of(tags)).bindTo(registry);
+        return cache;
+    }
+
+    @Override
+    protected Long size() {
+        return cache.weightedSize();
+    }
+
+    @Override
+    protected long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    @Override
+    protected Long missCount() {
+        return cache.stats().missCount();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    @Override
+    protected long putCount() {
+        return cache.stats().putCount();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        Iterable<Tag> tags = getTagsWithCacheName();
+        FunctionCounter.builder("cache.load", cache, c -> c.stats().loadSuccessCount())
+                .tags(tags)
+                .tag("result", "success")
+                .description("The number of times create returned a new value")
+                .register(registry);
+        FunctionCounter.builder("cache.load", cache, c -> c.stats().loadFailureCount())
+                .tags(tags)
+                .tag("result", "failure")
+                .description("The number of times create threw an exception")
+                .register(registry);
+        TimeGauge.builder("cache.load.duration", cache, TimeUnit.NANOSECONDS, c -> c.stats().totalLoadTime())
+                .tags(tags)
+                .description("The time the cache has spent in create")
+                .register(registry);
+        Gauge.builder("cache.max.size", cache, LruCache::maxWeight)
+                .tags(tags)
+                .description("The maximum size of the cache")
+                .register(registry);
+    }
+}
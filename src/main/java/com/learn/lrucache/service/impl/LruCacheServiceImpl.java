@@ -5,6 +5,8 @@ import com.learn.lrucache.service.LruCacheService;
 import org.springframework.stereotype.Service;
 import org.springframework.util.ResourceUtils;
 
+import javax.annotation.Resource;
+
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
@@ -19,7 +21,9 @@ import java.io.InputStreamReader;
 public class LruCacheServiceImpl implements LruCacheService {
     public static final String AREA_PATH = "json/area.json";
 
-    private HashLruCache<String, Object> hashLruCache = new HashLruCache<>(30);
+    // 见CacheConfig#areaCache，由Spring注入以便注册监控指标
+    @Resource
+    private HashLruCache<String, Object> hashLruCache;
 
     @Override
     public String getData() {
@@ -0,0 +1,75 @@
+package com.learn.lrucache.simulator;
+
+import com.learn.lrucache.bean.policy.ArcPolicy;
+import com.learn.lrucache.bean.policy.ClockPolicy;
+import com.learn.lrucache.bean.policy.EvictionPolicy;
+import com.learn.lrucache.bean.policy.SlruPolicy;
+import com.learn.lrucache.bean.policy.TwoQueuePolicy;
+import com.learn.lrucache.bean.policy.WTinyLfuPolicy;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 模拟器支持的淘汰策略，以及每种策略在缓存数据之外额外占用的内存估算
+ * <p>
+ * 内存按64位JVM、开启压缩指针估算：策略节点（对象头12 + key、prev、next各4 + queue 4 + 标记1，对齐后32字节）
+ * 加上策略内部HashMap的Node（32字节）和桶（约5字节），约69字节。2Q和ARC的幽灵队列最多再记录0.5倍、1倍容量的key，
+ * W-TinyLFU的频率统计约每条8字节。
+ */
+public enum Policy {
+    LRU(0) {
+        @Override
+        EvictionPolicy<Long> create(int maximumSize) {
+            // 使用LruCache自带的LinkedHashMap访问顺序
+            return null;
+        }
+    },
+    SLRU(69) {
+        @Override
+        EvictionPolicy<Long> create(int maximumSize) {
+            return new SlruPolicy<>(maximumSize);
+        }
+    },
+    TWO_QUEUE(69 + 69 / 2) {
+        @Override
+        EvictionPolicy<Long> create(int maximumSize) {
+            return new TwoQueuePolicy<>(maximumSize);
+        }
+    },
+    ARC(69 * 2) {
+        @Override
+        EvictionPolicy<Long> create(int maximumSize) {
+            return new ArcPolicy<>(maximumSize);
+        }
+    },
+    CLOCK(69) {
+        @Override
+        EvictionPolicy<Long> create(int maximumSize) {
+            return new ClockPolicy<>();
+        }
+    },
+    W_TINY_LFU(69 + 8) {
+        @Override
+        EvictionPolicy<Long> create(int maximumSize) {
+            return new WTinyLfuPolicy<>(maximumSize);
+        }
+    };
+
+    private final int overheadBytesPerEntry;
+
+    Policy(int overheadBytesPerEntry) {
+        this.overheadBytesPerEntry = overheadBytesPerEntry;
+    }
+
+    /**
+     * 创建容量为maximumSize的策略，LRU返回null
+     */
+    abstract EvictionPolicy<Long> create(int maximumSize);
+
+    /**
+     * 策略本身每条数据额外占用的字节数（估算）
+     */
+    public int overheadBytesPerEntry() {
+        return overheadBytesPerEntry;
+    }
+}
@@ -0,0 +1,85 @@
+package com.learn.lrucache.simulator;
+
+import java.util.Locale;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 一次模拟（一个轨迹、一个策略、一个容量）的结果
+ */
+public final class SimulationResult {
+    private final String trace;
+    private final Policy policy;
+    private final int maximumSize;
+    private final int tableSize;
+    private final long requestCount;
+    private final long hitCount;
+    private final long evictionCount;
+    private final long estimatedBytes;
+
+    SimulationResult(String trace, Policy policy, int maximumSize, int tableSize,
+                     long requestCount, long hitCount, long evictionCount, long estimatedBytes) {
+        this.trace = trace;
+        this.policy = policy;
+        this.maximumSize = maximumSize;
+        this.tableSize = tableSize;
+        this.requestCount = requestCount;
+        this.hitCount = hitCount;
+        this.evictionCount = evictionCount;
+        this.estimatedBytes = estimatedBytes;
+    }
+
+    public String trace() {
+        return trace;
+    }
+
+    public Policy policy() {
+        return policy;
+    }
+
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    public int tableSize() {
+        return tableSize;
+    }
+
+    public long requestCount() {
+        return requestCount;
+    }
+
+    public long hitCount() {
+        return hitCount;
+    }
+
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * 缓存装满时估计占用的堆内存（字节）
+     */
+    public long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    public double hitRate() {
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    static String csvHeader() {
+        return "trace,policy,maximumSize,tableSize,requests,hits,hitRate,evictions,estimatedBytes";
+    }
+
+    String toCsv() {
+        return String.format(Locale.US, "%s,%s,%d,%d,%d,%d,%.6f,%d,%d", trace, policy, maximumSize, tableSize,
+                requestCount, hitCount, hitRate(), evictionCount, estimatedBytes);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%-12s size=%-9d table=%-4d hitRate=%6.2f%% evictions=%-10d memory=%.1fMiB",
+                policy, maximumSize, tableSize, hitRate() * 100, evictionCount, estimatedBytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,202 @@
+package com.learn.lrucache.simulator;
+
+import com.learn.lrucache.bean.HashLruCache;
+import com.learn.lrucache.bean.LruCache;
+import com.learn.lrucache.bean.policy.EvictionPolicy;
+import com.learn.lrucache.bean.ticker.ManualTicker;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 基于访问轨迹的命中率模拟器，用于离线确定缓存容量、分片数和淘汰策略
+ * <p>
+ * 对每个策略和每个容量重放一次轨迹：get未命中时把key放入缓存，统计命中率和逐出次数，
+ * 并按"每条数据的固定开销 + 策略开销 + value大小"估算缓存装满时的内存占用。
+ * tableSize为1时模拟单个 {@link LruCache}，大于1时模拟 {@link HashLruCache} 的分片效果
+ * （每个分片各自淘汰，分布不均匀时命中率会比单个缓存低）。
+ * <p>
+ * 命令行用法：
+ * <pre>
+ * {@code
+ *   java -cp lrucache.jar com.learn.lrucache.simulator.Simulator \
+ *       --trace text:requests.log --sizes 1000,10000,100000 \
+ *       --policies LRU,ARC,W_TINY_LFU --table-size 16 --value-bytes 512 --csv
+ * }
+ * </pre>
+ * trace支持 text:路径、binary:路径、zipf:n,theta,length、scan:n,theta,scanPercent,length、uniform:n,length，
+ * 以及 convert 子命令：{@code convert text:requests.log requests.bin} 把轨迹转换为二进制格式。
+ */
+public final class Simulator {
+    // LruCache每条数据的固定开销：LinkedHashMap.Entry 40 + 桶约5 + 装箱的Long key 16
+    private static final int LRU_CACHE_BYTES_PER_ENTRY = 61;
+    // HashLruCache在此基础上每条数据还有一个Entity（时间轮指针、过期时间、引用计数等）
+    private static final int HASH_LRU_CACHE_BYTES_PER_ENTRY = LRU_CACHE_BYTES_PER_ENTRY + 56;
+    // 模拟时所有key共用的value
+    private static final Object VALUE = new Object();
+
+    private Simulator() {
+    }
+
+    /**
+     * 重放一次轨迹
+     *
+     * @param valueBytes 估算内存时每个value的平均大小
+     */
+    public static SimulationResult simulate(Trace trace, Policy policy, int maximumSize, int tableSize,
+                                            int valueBytes) throws IOException {
+        long[] requests = {0};
+        long[] hits = {0};
+        long evictions;
+        int bytesPerEntry;
+        if (tableSize <= 1) {
+            EvictionPolicy<Long> evictionPolicy = policy.create(maximumSize);
+            LruCache<Long, Object> cache = new LruCache<>(maximumSize, evictionPolicy, null);
+            trace.replay(key -> {
+                requests[0]++;
+                if (cache.get(key) != null) {
+                    hits[0]++;
+                } else {
+                    cache.put(key, VALUE);
+                }
+            });
+            evictions = cache.evictionCount();
+            bytesPerEntry = LRU_CACHE_BYTES_PER_ENTRY;
+        } else {
+            HashLruCache<Long, Object> cache = HashLruCache.<Long, Object>newBuilder()
+                    .maxSize(maximumSize)
+                    .tableSize(tableSize)
+                    .sweepInterval(0)
+                    .ticker(new ManualTicker())
+                    .evictionPolicy(policy == Policy.LRU ? null : policy::create)
+                    .build();
+            trace.replay(key -> {
+                requests[0]++;
+                if (cache.get(key) != null) {
+                    hits[0]++;
+                } else {
+                    cache.put(key, VALUE);
+                }
+            });
+            evictions = cache.evictionCount();
+            tableSize = cache.tableSize();
+            bytesPerEntry = HASH_LRU_CACHE_BYTES_PER_ENTRY;
+        }
+        long estimatedBytes = (long) maximumSize * (bytesPerEntry + policy.overheadBytesPerEntry() + valueBytes);
+        return new SimulationResult(trace.name(), policy, maximumSize, tableSize,
+                requests[0], hits[0], evictions, estimatedBytes);
+    }
+
+    /**
+     * 对所有策略和容量的组合各重放一次轨迹
+     */
+    public static List<SimulationResult> sweep(Trace trace, List<Policy> policies, int[] sizes, int tableSize,
+                                               int valueBytes) throws IOException {
+        List<SimulationResult> results = new ArrayList<>(policies.size() * sizes.length);
+        for (Policy policy : policies) {
+            for (int size : sizes) {
+                results.add(simulate(trace, policy, size, tableSize, valueBytes));
+            }
+        }
+        return results;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && "convert".equals(args[0])) {
+            long count = BinaryTrace.write(parseTrace(args[1]), Paths.get(args[2]));
+            System.out.println("写入" + count + "次访问到" + args[2]);
+            return;
+        }
+
+        Trace trace = SyntheticTrace.zipf(100_000, 0.99, 1_000_000, 1);
+        int[] sizes = {1_000, 5_000, 10_000, 50_000};
+        List<Policy> policies = Arrays.asList(Policy.values());
+        int tableSize = 1;
+        int valueBytes = 0;
+        boolean csv = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--trace":
+                    trace = parseTrace(args[++i]);
+                    break;
+                case "--sizes":
+                    sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--policies":
+                    policies = new ArrayList<>();
+                    for (String name : args[++i].split(",")) {
+                        policies.add(Policy.valueOf(name.trim().toUpperCase()));
+                    }
+                    break;
+                case "--table-size":
+                    tableSize = Integer.parseInt(args[++i]);
+                    break;
+                case "--value-bytes":
+                    valueBytes = Integer.parseInt(args[++i]);
+                    break;
+                case "--csv":
+                    csv = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        List<SimulationResult> results = sweep(trace, policies, sizes, tableSize, valueBytes);
+        print(trace, results, csv, System.out);
+    }
+
+    private static void print(Trace trace, List<SimulationResult> results, boolean csv, PrintStream out) {
+        if (csv) {
+            out.println(SimulationResult.csvHeader());
+            for (SimulationResult result : results) {
+                out.println(result.toCsv());
+            }
+            return;
+        }
+        out.println("轨迹：" + trace.name());
+        Policy last = null;
+        for (SimulationResult result : results) {
+            if (last != null && last != result.policy()) {
+                out.println();
+            }
+            last = result.policy();
+            out.println(result);
+        }
+    }
+
+    /**
+     * 解析 类型:参数 形式的轨迹描述
+     */
+    static Trace parseTrace(String spec) {
+        int colon = spec.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Trace must be type:args, got " + spec);
+        }
+        String type = spec.substring(0, colon);
+        String value = spec.substring(colon + 1);
+        String[] parts = value.split(",");
+        switch (type) {
+            case "text":
+                return new TextTrace(Paths.get(value));
+            case "binary":
+                return new BinaryTrace(Paths.get(value));
+            case "zipf":
+                return SyntheticTrace.zipf(Integer.parseInt(parts[0]), Double.parseDouble(parts[1]),
+                        Long.parseLong(parts[2]), 1);
+            case "scan":
+                return SyntheticTrace.scan(Integer.parseInt(parts[0]), Double.parseDouble(parts[1]),
+                        Double.parseDouble(parts[2]), Long.parseLong(parts[3]), 1);
+            case "uniform":
+                return SyntheticTrace.uniform(Integer.parseInt(parts[0]), Long.parseLong(parts[1]), 1);
+            default:
+                throw new IllegalArgumentException("Unknown trace type: " + type);
+        }
+    }
+}
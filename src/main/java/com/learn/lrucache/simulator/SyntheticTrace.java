@@ -0,0 +1,131 @@
+package com.learn.lrucache.simulator;
+
+import java.util.Random;
+import java.util.function.LongConsumer;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 合成的访问轨迹，没有真实日志时用来比较策略
+ * <p>
+ * 每次重放使用相同的随机种子，得到完全相同的访问序列。
+ */
+public abstract class SyntheticTrace implements Trace {
+    private final String name;
+    private final long length;
+    private final long seed;
+
+    private SyntheticTrace(String name, long length, long seed) {
+        this.name = name;
+        this.length = length;
+        this.seed = seed;
+    }
+
+    /**
+     * Zipf分布：key为 [0, n)，0最热，theta越大越集中（YCSB默认0.99）
+     */
+    public static SyntheticTrace zipf(int n, double theta, long length, long seed) {
+        return new SyntheticTrace(String.format("zipf(n=%d,theta=%s)", n, theta), length, seed) {
+            private final Zipfian zipfian = new Zipfian(n, theta);
+
+            @Override
+            long next(Random random) {
+                return zipfian.next(random);
+            }
+        };
+    }
+
+    /**
+     * 在Zipf分布的访问中混入顺序扫描：每次访问以scanPercent的概率来自一个不断递增、从不重复的key序列，
+     * 模拟批量任务对缓存的污染。
+     */
+    public static SyntheticTrace scan(int n, double theta, double scanPercent, long length, long seed) {
+        return new SyntheticTrace(String.format("scan(n=%d,theta=%s,scan=%s)", n, theta, scanPercent), length, seed) {
+            private final Zipfian zipfian = new Zipfian(n, theta);
+            private long cursor;
+
+            @Override
+            void reset() {
+                cursor = n;
+            }
+
+            @Override
+            long next(Random random) {
+                return random.nextDouble() < scanPercent ? cursor++ : zipfian.next(random);
+            }
+        };
+    }
+
+    /**
+     * 均匀分布：key为 [0, n)
+     */
+    public static SyntheticTrace uniform(int n, long length, long seed) {
+        return new SyntheticTrace(String.format("uniform(n=%d)", n), length, seed) {
+            @Override
+            long next(Random random) {
+                return random.nextInt(n);
+            }
+        };
+    }
+
+    @Override
+    public void replay(LongConsumer consumer) {
+        Random random = new Random(seed);
+        reset();
+        for (long i = 0; i < length; i++) {
+            consumer.accept(next(random));
+        }
+    }
+
+    void reset() {
+    }
+
+    abstract long next(Random random);
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Zipf分布的随机数，算法与YCSB的ZipfianGenerator相同
+     */
+    static final class Zipfian {
+        private final int n;
+        private final double theta;
+        private final double alpha;
+        private final double zetan;
+        private final double eta;
+
+        Zipfian(int n, double theta) {
+            if (n <= 1 || theta <= 0 || theta >= 1) {
+                throw new IllegalArgumentException("n must be > 1 and theta in (0, 1)");
+            }
+            this.n = n;
+            this.theta = theta;
+            this.alpha = 1.0 / (1.0 - theta);
+            this.zetan = zeta(n, theta);
+            this.eta = (1 - Math.pow(2.0 / n, 1 - theta)) / (1 - zeta(2, theta) / zetan);
+        }
+
+        int next(Random random) {
+            double u = random.nextDouble();
+            double uz = u * zetan;
+            if (uz < 1.0) {
+                return 0;
+            }
+            if (uz < 1.0 + Math.pow(0.5, theta)) {
+                return 1;
+            }
+            return Math.min(n - 1, (int) (n * Math.pow(eta * u - eta + 1, alpha)));
+        }
+
+        private static double zeta(int n, double theta) {
+            double sum = 0;
+            for (int i = 1; i <= n; i++) {
+                sum += 1 / Math.pow(i, theta);
+            }
+            return sum;
+        }
+    }
+}
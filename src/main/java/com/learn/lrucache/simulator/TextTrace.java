@@ -0,0 +1,63 @@
+package com.learn.lrucache.simulator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.LongConsumer;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 文本格式的轨迹：每行一次访问，取第一个空白之前的内容作为key
+ * <p>
+ * 数字直接作为key；其它字符串（例如从请求日志中截取的URL、地区编码）用64位FNV-1a哈希转换为long。
+ * 空行和以#开头的行会被忽略。
+ */
+public class TextTrace implements Trace {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Path path;
+
+    public TextTrace(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public void replay(LongConsumer consumer) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.charAt(0) == '#') {
+                    continue;
+                }
+                int end = 0;
+                while (end < line.length() && !Character.isWhitespace(line.charAt(end))) {
+                    end++;
+                }
+                consumer.accept(toKey(line.substring(0, end)));
+            }
+        }
+    }
+
+    static long toKey(String token) {
+        try {
+            return Long.parseLong(token);
+        } catch (NumberFormatException e) {
+            long hash = FNV_OFFSET_BASIS;
+            for (int i = 0; i < token.length(); i++) {
+                hash ^= token.charAt(i);
+                hash *= FNV_PRIME;
+            }
+            return hash;
+        }
+    }
+
+    @Override
+    public String name() {
+        return path.getFileName().toString();
+    }
+}
@@ -0,0 +1,24 @@
+package com.learn.lrucache.simulator;
+
+import java.io.IOException;
+import java.util.function.LongConsumer;
+
+/**
+ * @author Huangxuchu
+ * @date 2026/10/16
+ * @description 访问轨迹：按顺序给出每次访问的key
+ * <p>
+ * 模拟器会对同一个轨迹重放多次（每个容量、每个策略各一次），实现需要支持重复调用 {@link #replay}。
+ */
+public interface Trace {
+
+    /**
+     * 按顺序把每次访问的key交给consumer
+     */
+    void replay(LongConsumer consumer) throws IOException;
+
+    /**
+     * 轨迹的名称，用于输出报告
+     */
+    String name();
+}